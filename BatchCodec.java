@@ -0,0 +1,145 @@
+package utilities;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Frames several ISO8583 messages into one parser request and splits the batched response back into
+ * one {@link ParserResponse} per message.
+ * <p>
+ * Requests are either one message per line or a JSON array of strings. Responses use the same framing and
+ * carry one entry per message: {"index": n, "status": 200, "body": "..."}. Entries are matched back to
+ * messages by index, so the parser may answer them in any order.
+ */
+public final class BatchCodec {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * How messages and results are framed in a batch request or response
+     */
+    public enum Framing {
+        NEWLINE_DELIMITED("application/x-ndjson"),
+        JSON_ARRAY("application/json");
+
+        public final String contentType;
+
+        Framing(String contentType) {
+            this.contentType = contentType;
+        }
+
+        /**
+         * @param contentType a Content-Type header value, possibly with parameters
+         * @return the matching framing, or NEWLINE_DELIMITED if the content type is not recognized
+         */
+        public static Framing fromContentType(String contentType) {
+            if (contentType != null && contentType.startsWith(JSON_ARRAY.contentType)) {
+                return JSON_ARRAY;
+            }
+            return NEWLINE_DELIMITED;
+        }
+    }
+
+    private BatchCodec() {
+    }
+
+    public static String encodeRequest(List<String> isoMessages, Framing framing) throws IOException {
+        if (framing == Framing.JSON_ARRAY) {
+            ArrayNode array = objectMapper.createArrayNode();
+            isoMessages.forEach(array::add);
+            return objectMapper.writeValueAsString(array);
+        }
+
+        StringBuilder body = new StringBuilder();
+        for (String isoMessage : isoMessages) {
+            if (isoMessage.indexOf('\n') >= 0 || isoMessage.indexOf('\r') >= 0) {
+                throw new IllegalArgumentException("Message contains a line break and cannot be newline-framed; use JSON_ARRAY");
+            }
+            body.append(isoMessage).append('\n');
+        }
+        return body.toString();
+    }
+
+    public static List<String> decodeRequest(String body, Framing framing) throws IOException {
+        List<String> isoMessages = new ArrayList<>();
+        if (framing == Framing.JSON_ARRAY) {
+            for (JsonNode message : objectMapper.readTree(body)) {
+                isoMessages.add(message.asText());
+            }
+            return isoMessages;
+        }
+
+        if (body.isEmpty()) {
+            return isoMessages;
+        }
+        // Every message, empty ones included, is terminated by a newline; only the last terminator is dropped
+        String lines = body.endsWith("\n") ? body.substring(0, body.length() - 1) : body;
+        isoMessages.addAll(Arrays.asList(lines.split("\n", -1)));
+        return isoMessages;
+    }
+
+    public static String encodeResponse(List<ParserResponse> responses, Framing framing) throws IOException {
+        ArrayNode array = objectMapper.createArrayNode();
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < responses.size(); i++) {
+            ObjectNode entry = objectMapper.createObjectNode();
+            entry.put("index", i);
+            entry.put("status", responses.get(i).statusCode);
+            entry.put("body", responses.get(i).body);
+            if (framing == Framing.JSON_ARRAY) {
+                array.add(entry);
+            } else {
+                lines.append(objectMapper.writeValueAsString(entry)).append('\n');
+            }
+        }
+        return framing == Framing.JSON_ARRAY ? objectMapper.writeValueAsString(array) : lines.toString();
+    }
+
+    /**
+     * Demultiplexes a batched response
+     * @param body the response body
+     * @param framing the framing used by the response
+     * @param expected the number of messages that were sent
+     * @return one response per message, in the order the messages were sent
+     * @throws IOException if the body cannot be parsed or an entry is missing
+     */
+    public static List<ParserResponse> decodeResponse(String body, Framing framing, int expected) throws IOException {
+        List<JsonNode> entries = new ArrayList<>();
+        if (framing == Framing.JSON_ARRAY) {
+            objectMapper.readTree(body).forEach(entries::add);
+        } else {
+            for (String line : body.split("\n")) {
+                if (!line.isBlank()) {
+                    entries.add(objectMapper.readTree(line));
+                }
+            }
+        }
+
+        ParserResponse[] responses = new ParserResponse[expected];
+        for (JsonNode entry : entries) {
+            JsonNode index = entry.get("index");
+            JsonNode status = entry.get("status");
+            JsonNode responseBody = entry.get("body");
+            if (index == null || !index.canConvertToInt() || status == null || !status.canConvertToInt()
+                    || responseBody == null || !responseBody.isTextual()) {
+                throw new IOException("Batch response entry needs an integer index and status and a string body: " + entry);
+            }
+            if (index.intValue() < 0 || index.intValue() >= expected) {
+                throw new IOException("Batch response index " + index.intValue() + " is out of range for " + expected + " messages");
+            }
+            responses[index.intValue()] = new ParserResponse(status.intValue(), responseBody.asText());
+        }
+        for (int i = 0; i < expected; i++) {
+            if (responses[i] == null) {
+                throw new IOException("Batch response is missing the result for message " + i);
+            }
+        }
+        return List.of(responses);
+    }
+}
@@ -0,0 +1,149 @@
+package utilities;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link ParserTransport} decorator that remembers parser responses for the rest of the run.
+ * Responses are keyed by the exact message (looked up by its hash, confirmed by equality), the cache holds at
+ * most a fixed number of entries and evicts the least recently used one first. Only responses the parser
+ * would give again are kept: 2xx and 4xx. 5xx responses and transport failures always go to the delegate.
+ */
+public class CachingParserTransport implements ParserTransport {
+    public static final String CACHE_PROPERTY = "iso.parser.cache";
+    public static final String CACHE_SIZE_PROPERTY = "iso.parser.cacheSize";
+    public static final int DEFAULT_CACHE_SIZE = 1024;
+
+    private final ParserTransport delegate;
+    private final LinkedHashMap<String, ParserResponse> cache;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param delegate the transport that actually reaches the parser
+     * @param maxEntries the most responses kept before the least recently used is evicted
+     */
+    public CachingParserTransport(ParserTransport delegate, int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Cache size must be at least 1 but was " + maxEntries);
+        }
+        this.delegate = delegate;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ParserResponse> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @return true if -Diso.parser.cache=true
+     */
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(CACHE_PROPERTY);
+    }
+
+    /**
+     * Wraps a transport with a cache sized by -Diso.parser.cacheSize (default 1024)
+     * @param delegate the transport that actually reaches the parser
+     * @return the caching transport
+     */
+    public static CachingParserTransport wrap(ParserTransport delegate) {
+        return new CachingParserTransport(delegate, Integer.getInteger(CACHE_SIZE_PROPERTY, DEFAULT_CACHE_SIZE));
+    }
+
+    @Override
+    public ParserResponse send(String isoMessage) throws IOException {
+        ParserResponse cached = lookup(isoMessage);
+        if (cached != null) {
+            return cached;
+        }
+        return store(isoMessage, delegate.send(isoMessage));
+    }
+
+    @Override
+    public ParserResponse send(byte[] isoMessage, int offset, int length) throws IOException {
+        return send(new String(isoMessage, offset, length, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public CompletableFuture<ParserResponse> sendAsync(String isoMessage) {
+        ParserResponse cached = lookup(isoMessage);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return delegate.sendAsync(isoMessage).thenApply(response -> store(isoMessage, response));
+    }
+
+    /**
+     * Answers cached messages locally and sends only the misses to the delegate, as one batch
+     */
+    @Override
+    public List<ParserResponse> sendBatch(List<String> isoMessages, BatchCodec.Framing framing) throws IOException {
+        List<ParserResponse> responses = new ArrayList<>(isoMessages.size());
+        List<String> missed = new ArrayList<>();
+        List<Integer> missedIndexes = new ArrayList<>();
+        for (int i = 0; i < isoMessages.size(); i++) {
+            ParserResponse cached = lookup(isoMessages.get(i));
+            responses.add(cached);
+            if (cached == null) {
+                missed.add(isoMessages.get(i));
+                missedIndexes.add(i);
+            }
+        }
+        if (!missed.isEmpty()) {
+            List<ParserResponse> sent = delegate.sendBatch(missed, framing);
+            for (int i = 0; i < sent.size(); i++) {
+                responses.set(missedIndexes.get(i), store(missed.get(i), sent.get(i)));
+            }
+        }
+        return responses;
+    }
+
+    private ParserResponse lookup(String isoMessage) {
+        ParserResponse cached;
+        synchronized (cache) {
+            cached = cache.get(isoMessage);
+        }
+        (cached != null ? hits : misses).incrementAndGet();
+        return cached;
+    }
+
+    private ParserResponse store(String isoMessage, ParserResponse response) {
+        if (response.statusCode < 500) {
+            synchronized (cache) {
+                cache.put(isoMessage, response);
+            }
+        }
+        return response;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * Forgets every cached response
+     */
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+}
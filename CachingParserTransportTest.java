@@ -0,0 +1,95 @@
+package utilities;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class CachingParserTransportTest {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Answers 503 for messages starting with "5", 400 for "4" and 200 otherwise, recording what it was sent
+     */
+    private static class RecordingTransport implements ParserTransport {
+        final List<String> sent = new ArrayList<>();
+
+        @Override
+        public ParserResponse send(String isoMessage) {
+            sent.add(isoMessage);
+            int status = isoMessage.startsWith("5") ? 503 : isoMessage.startsWith("4") ? 400 : 200;
+            return new ParserResponse(status, "[{\"dataElementId\":\"0\",\"value\":\"" + isoMessage + "\"}]");
+        }
+
+        @Override
+        public CompletableFuture<ParserResponse> sendAsync(String isoMessage) {
+            return CompletableFuture.completedFuture(send(isoMessage));
+        }
+    }
+
+    @Test
+    void testRepeatedMessagesAreAnsweredFromCache() throws IOException {
+        RecordingTransport delegate = new RecordingTransport();
+        CachingParserTransport cache = new CachingParserTransport(delegate, 2);
+
+        ParserResponse first = cache.send("0100A");
+        assert cache.send("0100A") == first : "Repeated message should be answered from the cache";
+        assert cache.sendAsync("0100A").join() == first : "Async sends should use the cache too";
+        cache.send("4000B");
+        cache.send("4000B");
+        assert delegate.sent.equals(List.of("0100A", "4000B")) : "Only the first send of each message should reach the parser";
+        assert cache.getHits() == 3 && cache.getMisses() == 2 : "Hits and misses should be counted";
+
+        cache.send("5000C");
+        cache.send("5000C");
+        assert delegate.sent.size() == 4 : "Server errors should never be cached";
+
+        // Size 2: touching 0100A makes 4000B the eldest, so adding a third message evicts it
+        cache.send("0100A");
+        cache.send("0100D");
+        assert cache.size() == 2 : "Cache should stay within its bound";
+        cache.send("0100A");
+        cache.send("4000B");
+        assert delegate.sent.subList(4, delegate.sent.size()).equals(List.of("0100D", "4000B")) :
+            "Least recently used entry should be evicted first";
+    }
+
+    @Test
+    void testBatchSendsOnlyMisses() throws IOException {
+        RecordingTransport delegate = new RecordingTransport();
+        CachingParserTransport cache = new CachingParserTransport(delegate, 16);
+        cache.send("0100A");
+
+        List<ParserResponse> responses = cache.sendBatch(List.of("0100A", "0100B", "0100A", "0100C"),
+                BatchCodec.Framing.NEWLINE_DELIMITED);
+        assert responses.size() == 4 : "Expected one response per message";
+        assert responses.get(0).getFieldValue("0").equals("0100A") && responses.get(3).getFieldValue("0").equals("0100C") :
+            "Responses should stay in message order";
+        assert delegate.sent.equals(List.of("0100A", "0100B", "0100C")) : "Cached messages should not be resent";
+    }
+
+    @Test
+    void testSeededDefaultsAreStable() throws IOException {
+        FieldSchema schema = FieldSchema.compile(objectMapper.readTree(
+                "{\"3\":{\"format\":\"fixed\",\"type\":\"numeric\",\"length\":6,\"active\":true},"
+                        + "\"48\":{\"format\":\"lllvar\",\"type\":\"alphanumeric\",\"max_length\":25,\"active\":true}}"));
+        System.setProperty(SeededDefaults.SEED_PROPERTY, "42");
+        try {
+            String first = new IsoMessageBuilder(schema).generateDefaultFields().buildIsoMessage();
+            String second = new IsoMessageBuilder(schema).generateDefaultFields().buildIsoMessage();
+            assert first.equals(second) : "Seeded defaults should build identical messages";
+            assert new IsoMessageDecoder(schema).decode(first).isValid() : "Seeded defaults should respect allowedChars";
+
+            System.setProperty(SeededDefaults.SEED_PROPERTY, "43");
+            String other = new IsoMessageBuilder(schema).generateDefaultFields().buildIsoMessage();
+            assert !first.equals(other) : "A different seed should give different defaults";
+        } finally {
+            System.clearProperty(SeededDefaults.SEED_PROPERTY);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package utilities;
+
+import utilities.CreateIsoMessage.TestResult;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Build, send and verify times of invalid-data cases, aggregated per field id and per test category.
+ * Each group keeps a {@link LatencyHistogram} of total case time plus the summed time of each phase, so a
+ * slow run can be traced to the generator (build), the parser or network (send) or the response checks
+ * (verify), and to the data elements or categories that cause it. Recording is thread-safe.
+ */
+public final class CaseTimings {
+    /** Number of fields and categories {@link #print} lists */
+    public static final int SLOWEST_SHOWN = 5;
+
+    private final Map<String, Timing> byField = new ConcurrentHashMap<>();
+    private final Map<String, Timing> byCategory = new ConcurrentHashMap<>();
+
+    /**
+     * Time spent in one group of cases
+     */
+    public static final class Timing {
+        public final LatencyHistogram total = new LatencyHistogram();
+        private final AtomicLong buildNanos = new AtomicLong();
+        private final AtomicLong sendNanos = new AtomicLong();
+        private final AtomicLong verifyNanos = new AtomicLong();
+
+        void record(TestResult result) {
+            total.record(result.getTotalNanos());
+            buildNanos.addAndGet(result.buildNanos);
+            sendNanos.addAndGet(result.sendNanos);
+            verifyNanos.addAndGet(result.verifyNanos);
+        }
+
+        void add(Timing other) {
+            total.add(other.total);
+            buildNanos.addAndGet(other.buildNanos.get());
+            sendNanos.addAndGet(other.sendNanos.get());
+            verifyNanos.addAndGet(other.verifyNanos.get());
+        }
+
+        public long getCount() {
+            return total.getCount();
+        }
+
+        public long getBuildNanos() {
+            return buildNanos.get();
+        }
+
+        public long getSendNanos() {
+            return sendNanos.get();
+        }
+
+        public long getVerifyNanos() {
+            return verifyNanos.get();
+        }
+    }
+
+    /**
+     * Records one case under its field id and its test category
+     * @param result the case result with its phase times set
+     */
+    public void record(TestResult result) {
+        record(result, result.fieldId, result.testCategory);
+    }
+
+    /**
+     * Records one case under a given field id and test category, e.g. once for every field of a
+     * multi-field case so the groups stay per field
+     * @param result the case result with its phase times set
+     * @param fieldId the field group to record under
+     * @param testCategory the category group to record under
+     */
+    public void record(TestResult result, String fieldId, String testCategory) {
+        byField.computeIfAbsent(fieldId, k -> new Timing()).record(result);
+        byCategory.computeIfAbsent(testCategory, k -> new Timing()).record(result);
+    }
+
+    /**
+     * Adds every case recorded in another instance to this one
+     * @param other the timings to add
+     * @return this instance
+     */
+    public CaseTimings add(CaseTimings other) {
+        other.byField.forEach((field, timing) -> byField.computeIfAbsent(field, k -> new Timing()).add(timing));
+        other.byCategory.forEach((category, timing) -> byCategory.computeIfAbsent(category, k -> new Timing()).add(timing));
+        return this;
+    }
+
+    public Map<String, Timing> getByField() {
+        return byField;
+    }
+
+    public Map<String, Timing> getByCategory() {
+        return byCategory;
+    }
+
+    /**
+     * @return true if no case has been recorded
+     */
+    public boolean isEmpty() {
+        return byField.isEmpty();
+    }
+
+    /**
+     * Gets the slowest groups by 99th percentile case time
+     * @param timings the groups, e.g. {@link #getByField()}
+     * @param limit the most groups to return
+     * @return group names, slowest first
+     */
+    public static List<String> slowest(Map<String, Timing> timings, int limit) {
+        List<String> names = new ArrayList<>(timings.keySet());
+        names.sort(Comparator.comparingLong((String name) -> timings.get(name).total.getValueAtPercentile(99))
+                .reversed()
+                .thenComparing(Comparator.naturalOrder()));
+        return names.subList(0, Math.min(limit, names.size()));
+    }
+
+    /**
+     * Prints the slowest fields and categories with their case time percentiles and mean phase times
+     * @param out where to print
+     * @param prefix prepended to every line
+     */
+    public void print(PrintStream out, String prefix) {
+        printSlowest(out, prefix, "Slowest fields", byField);
+        printSlowest(out, prefix, "Slowest categories", byCategory);
+    }
+
+    private static void printSlowest(PrintStream out, String prefix, String title, Map<String, Timing> timings) {
+        out.println(prefix + title + " (ms per case: p50 / p99 / max, mean build / send / verify):");
+        for (String name : slowest(timings, SLOWEST_SHOWN)) {
+            Timing timing = timings.get(name);
+            long count = timing.getCount();
+            out.println(prefix + String.format("  %-32s %4d cases  %s / %s / %s  %s / %s / %s",
+                    name, count,
+                    millis(timing.total.getValueAtPercentile(50)), millis(timing.total.getValueAtPercentile(99)),
+                    millis(timing.total.getMax()),
+                    millis(timing.getBuildNanos() / count), millis(timing.getSendNanos() / count),
+                    millis(timing.getVerifyNanos() / count)));
+        }
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.3f", nanos / 1_000_000.0);
+    }
+}
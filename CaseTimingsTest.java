@@ -0,0 +1,54 @@
+package utilities;
+
+import org.junit.jupiter.api.Test;
+import utilities.CreateIsoMessage.TestResult;
+import utilities.CreateIsoMessage.TestSummary;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class CaseTimingsTest {
+
+    private static TestResult result(String fieldId, String testCategory, long buildMillis, long sendMillis) {
+        TestResult result = new TestResult(fieldId, testCategory);
+        result.buildNanos = buildMillis * 1_000_000;
+        result.sendNanos = sendMillis * 1_000_000;
+        result.verifyNanos = 1_000_000;
+        return result;
+    }
+
+    @Test
+    void testAggregatesPerFieldAndCategory() {
+        TestSummary field2 = TestSummary.fromResults("2", true, List.of(
+                result("2", "invalid_type_value", 1, 10),
+                result("2", "invalid_empty_value", 1, 200)));
+        TestSummary field3 = TestSummary.fromResults("3", true, List.of(
+                result("3", "invalid_type_value", 5, 20)));
+        TestSummary all = TestSummary.combine(List.of(field2, field3));
+
+        CaseTimings.Timing typeTiming = all.timings.getByCategory().get("invalid_type_value");
+        assert typeTiming.getCount() == 2 : "Both fields' type cases should be combined";
+        assert typeTiming.getBuildNanos() == 6_000_000 : "Build time should be summed";
+        assert typeTiming.getSendNanos() == 30_000_000 : "Send time should be summed";
+        assert all.timings.getByField().get("2").getCount() == 2 : "Field 2 should have both its cases";
+
+        assert CaseTimings.slowest(all.timings.getByField(), 5).equals(List.of("2", "3")) : "Field 2 holds the slowest case";
+        assert CaseTimings.slowest(all.timings.getByCategory(), 1).equals(List.of("invalid_empty_value")) :
+            "Empty value case should be the slowest category";
+    }
+
+    @Test
+    void testPrintsSlowest() {
+        CaseTimings timings = new CaseTimings();
+        timings.record(result("4", "invalid_length_long_value", 2, 50));
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        timings.print(new PrintStream(buffer, true, StandardCharsets.UTF_8), "");
+        String printed = buffer.toString(StandardCharsets.UTF_8);
+        assert printed.contains("Slowest fields") && printed.contains("Slowest categories") : "Both sections should be printed";
+        assert printed.contains("invalid_length_long_value") : "The category should be listed";
+        assert printed.contains("2.000 / 50.000 / 1.000") : "Mean phase times should be printed, got " + printed;
+    }
+}
@@ -0,0 +1,326 @@
+package utilities;
+
+import utilities.CreateIsoMessage.TestResult;
+import utilities.CreateIsoMessage.TestSummary;
+import utilities.MutationCombinations.Combination;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs messages that carry several invalid fields at once, so parser bugs that depend on how fields interact
+ * (e.g. a wrong LLLVAR length in DE 48 followed by a secondary-bitmap field) are exercised. Combinations come
+ * lazily from {@link MutationCombinations}: with strength t every message carries exactly t invalid fields, and
+ * every t-way interaction of fields x TEST_CATEGORIES is sent once.
+ * <p>
+ * All cases share one valid base message holding the sample data of every field under test, which is sent and
+ * checked once up front; it is also each case's restored message. Invalid values are spliced into it with
+ * {@link MessageTemplate#splice(FieldSpec[], String[], IsoMessageEncoder)}. Combinations are drawn in chunks of
+ * batchSize, each chunk runs on a virtual thread with at most maxConcurrency chunks in flight, and is sent as one
+ * batch request when batching is on (-Diso.parser.batch=true). Only the chunks in flight are held in memory.
+ */
+public class CombinationExecutor {
+    public static final String STRENGTH_PROPERTY = "iso.combo.strength";
+    public static final String LIMIT_PROPERTY = "iso.combo.limit";
+    public static final String MAX_CONCURRENCY_PROPERTY = "iso.combo.maxConcurrency";
+    public static final String BATCH_SIZE_PROPERTY = "iso.combo.batchSize";
+    public static final int DEFAULT_STRENGTH = 2;
+    public static final String FIELD_ID = "COMBINATIONS";
+
+    private final FieldSchema schema;
+    private final int strength;
+    private final long limit;
+    private final int batchSize;
+    private final Semaphore permits;
+
+    /**
+     * Uses the loaded config and -Diso.combo.strength, -Diso.combo.limit, -Diso.combo.maxConcurrency and
+     * -Diso.combo.batchSize where set
+     */
+    public CombinationExecutor() {
+        this(CreateIsoMessage.getSchema(),
+                Integer.getInteger(STRENGTH_PROPERTY, DEFAULT_STRENGTH),
+                Long.getLong(LIMIT_PROPERTY, Long.MAX_VALUE),
+                Integer.getInteger(MAX_CONCURRENCY_PROPERTY, InvalidDataExecutor.DEFAULT_MAX_CONCURRENCY),
+                Integer.getInteger(BATCH_SIZE_PROPERTY, CreateIsoMessage.DEFAULT_BATCH_SIZE));
+    }
+
+    /**
+     * @param schema the schema the base message is built from
+     * @param strength the number of invalid fields per message, at least 2
+     * @param limit the most combinations to send; later ones are skipped
+     * @param maxConcurrency the most chunks sending at once
+     * @param batchSize the number of combinations per chunk
+     */
+    public CombinationExecutor(FieldSchema schema, int strength, long limit, int maxConcurrency, int batchSize) {
+        if (strength < 2) {
+            throw new IllegalArgumentException("Strength must be at least 2 but was " + strength);
+        }
+        if (limit < 1 || maxConcurrency < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("limit, maxConcurrency and batchSize must be at least 1 but were "
+                    + limit + ", " + maxConcurrency + " and " + batchSize);
+        }
+        this.schema = schema;
+        this.strength = strength;
+        this.limit = limit;
+        this.batchSize = batchSize;
+        this.permits = new Semaphore(maxConcurrency);
+    }
+
+    /**
+     * @return true if combinations were requested with -Diso.combo.strength
+     */
+    public static boolean isEnabled() {
+        return System.getProperty(STRENGTH_PROPERTY) != null;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    /**
+     * Checks the shared base message, then sends every combination of the fields' invalid values
+     * @param specs the fields under test
+     * @return one summary over all combinations: the base message counts as a test that should pass and every
+     * combination as a test that should fail
+     */
+    public TestSummary validateCombinations(List<FieldSpec> specs) throws IOException {
+        EventLog log = EventLog.console().forField(FIELD_ID);
+        MutationCombinations combinations = new MutationCombinations(specs, CreateIsoMessage.TEST_CATEGORIES, strength);
+        long count = Math.min(combinations.count(), limit);
+        log.summary("combo.start", "\n========================================"
+                + "\nTesting " + strength + "-wise combinations of " + combinations.getFields().size() + " fields"
+                + "\nCombinations: " + combinations.count() + (count < combinations.count() ? ", limited to " + count : "")
+                + "\n========================================");
+
+        IsoMessageBuilder builder = new IsoMessageBuilder(schema);
+        if (!checkBaseMessage(builder, specs, log)) {
+            return TestSummary.fromResults(FIELD_ID, false, List.of());
+        }
+        MessageTemplate template = MessageTemplate.of(builder);
+        Map<String, String> values = new HashMap<>();
+        Map<String, String> failures = new HashMap<>();
+        prepareValues(combinations.getFields(), values, failures, log);
+
+        CaseTimings timings = new CaseTimings();
+        AtomicInteger total = new AtomicInteger();
+        AtomicInteger unexpected = new AtomicInteger();
+        AtomicInteger expected = new AtomicInteger();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Iterator<Combination> iterator = combinations.iterator();
+        long submitted = 0;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (iterator.hasNext() && submitted < limit && failure.get() == null) {
+                List<Combination> chunk = new ArrayList<>(batchSize);
+                while (iterator.hasNext() && chunk.size() < batchSize && submitted < limit) {
+                    chunk.add(iterator.next());
+                    submitted++;
+                }
+                try {
+                    permits.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while sending combinations", e);
+                }
+                executor.submit(() -> {
+                    try {
+                        for (TestResult result : runChunk(template, chunk, values, failures)) {
+                            total.incrementAndGet();
+                            if (result.gotExpectedError) {
+                                expected.incrementAndGet();
+                            } else if (result.executed) {
+                                unexpected.incrementAndGet();
+                            }
+                            // Timed per constituent field and category, so the groups stay bounded
+                            String[] fieldIds = result.fieldId.split("\\+");
+                            String[] testCategories = result.testCategory.split("\\+");
+                            for (int i = 0; i < fieldIds.length; i++) {
+                                timings.record(result, fieldIds[i], testCategories[i]);
+                            }
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        }
+        if (failure.get() != null) {
+            throw new IOException("Sending combinations failed: " + failure.get().getMessage(), failure.get());
+        }
+        return new TestSummary(1 + total.get(), 1, unexpected.get(), expected.get(), FIELD_ID + " (" + strength + "-wise)", timings);
+    }
+
+    /**
+     * Builds the shared base message from every field's sample data, sends it and checks the parser accepted it
+     * @param builder the builder to use; it holds the base message afterwards
+     */
+    private boolean checkBaseMessage(IsoMessageBuilder builder, List<FieldSpec> specs, EventLog log) throws IOException {
+        TestResult baseResult = new TestResult(FIELD_ID, ResultStream.BASE_CATEGORY);
+        baseResult.description = "Valid base message with the sample data of every field";
+        long buildStart = System.nanoTime();
+        for (FieldSpec spec : specs) {
+            if (spec.sampleData != null) {
+                builder.applyBddUpdate(spec, spec.sampleData, spec.type.configName);
+            }
+        }
+        builder.generateDefaultFields();
+        String baseMessage = builder.buildIsoMessage();
+        long sendStart = System.nanoTime();
+        baseResult.buildNanos = sendStart - buildStart;
+        ParserResponse baseResponse = CreateIsoMessage.sendIsoMessage(baseMessage);
+        baseResult.sendNanos = System.nanoTime() - sendStart;
+        baseResult.executed = true;
+        log.wire("base.request", "Base ISO Message: ", () -> baseMessage);
+        log.info("base.seed", "Default field seed: " + builder.getDefaultsSeed());
+        log.wire("base.response", "Base Response: ", () -> CreateIsoMessage.toResponseString(baseResponse));
+
+        if (baseResponse.isError()) {
+            baseResult.parserError = baseResponse.getErrorMessage();
+            baseResult.errorMessage = "Base message rejected: " + baseResult.parserError;
+            log.summary("base.result", "❌ Base message for combinations rejected, skipping them: " + baseResult.parserError);
+            ResultStream.record(baseResult);
+            return false;
+        }
+        log.info("base.result", "✓ Base message valid, proceeding with combinations");
+        baseResult.passed = true;
+        ResultStream.record(baseResult);
+        return true;
+    }
+
+    /**
+     * Resolves each field's invalid value for each category once, the way single-field cases do
+     */
+    private static void prepareValues(List<FieldSpec> fields, Map<String, String> values, Map<String, String> failures,
+                                      EventLog log) {
+        for (FieldSpec spec : fields) {
+            for (String testCategory : CreateIsoMessage.TEST_CATEGORIES) {
+                if (!spec.hasInvalidValue(testCategory)) continue;
+                try {
+                    values.put(valueKey(spec.key, testCategory), IsoMessageBuilder.prepareValue(spec,
+                            spec.getInvalidValue(testCategory), spec.type.configName, log.forCase(spec.key, testCategory)));
+                } catch (Exception e) {
+                    failures.put(valueKey(spec.key, testCategory), e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static String valueKey(String fieldId, String testCategory) {
+        return fieldId + "/" + testCategory;
+    }
+
+    private static List<TestResult> runChunk(MessageTemplate template, List<Combination> chunk,
+                                             Map<String, String> values, Map<String, String> failures) {
+        EventLog log = EventLog.buffered();
+        IsoMessageEncoder encoder = new IsoMessageEncoder();
+        List<TestResult> results = new ArrayList<>(chunk.size());
+        List<TestResult> built = new ArrayList<>(chunk.size());
+        List<String> messages = new ArrayList<>(chunk.size());
+        for (Combination combination : chunk) {
+            TestResult result = new TestResult(combination.fieldId(), combination.testCategory());
+            result.description = combination.toString();
+            results.add(result);
+            long buildStart = System.nanoTime();
+            String[] fieldValues = new String[combination.fields.length];
+            for (int i = 0; i < fieldValues.length; i++) {
+                String key = valueKey(combination.fields[i].key, combination.categories[i]);
+                fieldValues[i] = values.get(key);
+                if (fieldValues[i] == null) {
+                    result.errorMessage = "Test execution error: " + failures.get(key);
+                    break;
+                }
+            }
+            if (result.errorMessage.isEmpty()) {
+                messages.add(template.splice(combination.fields, fieldValues, encoder).toString());
+                built.add(result);
+            }
+            result.buildNanos = System.nanoTime() - buildStart;
+        }
+
+        long sendStart = System.nanoTime();
+        List<ParserResponse> responses;
+        try {
+            responses = send(messages);
+        } catch (IOException | RuntimeException e) {
+            for (TestResult result : built) {
+                result.errorMessage = "Test execution error: " + e.getMessage();
+            }
+            responses = List.of();
+        }
+        // One request covers the whole chunk when batching, so each case is charged an equal share of it
+        long sendNanosPerCase = messages.isEmpty() ? 0 : (System.nanoTime() - sendStart) / messages.size();
+
+        for (int i = 0; i < responses.size(); i++) {
+            long verifyStart = System.nanoTime();
+            TestResult result = built.get(i);
+            result.sendNanos = sendNanosPerCase;
+            verify(result, messages.get(i), responses.get(i), log.forCase(result.fieldId, result.testCategory));
+            result.verifyNanos = System.nanoTime() - verifyStart;
+        }
+        for (TestResult result : results) {
+            if (!result.executed) {
+                log.forCase(result.fieldId, result.testCategory).info("case.exception",
+                        "✗ Combination " + result.description + " not sent: " + result.errorMessage);
+            }
+            ResultStream.record(result);
+        }
+        log.publish();
+        return results;
+    }
+
+    private static List<ParserResponse> send(List<String> messages) throws IOException {
+        if (Boolean.getBoolean(CreateIsoMessage.BATCH_PROPERTY)) {
+            return CreateIsoMessage.sendIsoMessages(messages);
+        }
+        List<ParserResponse> responses = new ArrayList<>(messages.size());
+        for (String message : messages) {
+            responses.add(CreateIsoMessage.sendIsoMessage(message));
+        }
+        return responses;
+    }
+
+    /**
+     * Checks the parser rejected the message. The restored message is the shared base, which was checked once.
+     */
+    private static void verify(TestResult result, String message, ParserResponse response, EventLog log) {
+        log.info("case.start", "\nTesting combination: " + result.description);
+        log.wire("case.request", "ISO Message: ", () -> message);
+        log.wire("case.response", "Parser Response: ", () -> CreateIsoMessage.toResponseString(response));
+        result.executed = true;
+        result.restoredSuccessfully = true;
+
+        boolean hasError = response.isError();
+        String errorMsg = hasError ? response.getErrorMessage() : null;
+        if (hasError && !mentionsAnyField(errorMsg, result.fieldId)) {
+            log.info("case.warning", "Warning: Error response doesn't mention any of fields " + result.fieldId);
+        }
+        log.info("case.invalid", "Invalid test result: " +
+            (hasError ? "✓ Got expected error: " + errorMsg : "✗ Missing expected error"));
+        result.gotExpectedError = hasError;
+        result.parserError = errorMsg;
+        result.passed = hasError;
+        if (!hasError) {
+            result.errorMessage = "Expected error response but got success";
+        }
+    }
+
+    private static boolean mentionsAnyField(String errorMsg, String fieldId) {
+        for (String field : fieldId.split("\\+")) {
+            if (errorMsg.contains(field)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
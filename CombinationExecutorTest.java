@@ -0,0 +1,56 @@
+package utilities;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import utilities.CreateIsoMessage.TestSummary;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class CombinationExecutorTest {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private FieldSchema schema;
+    private ParserStubServer stub;
+    private List<FieldSpec> specs;
+
+    @BeforeAll
+    void setup() throws IOException {
+        String configJson = Files.readString(Path.of("iso_config_extended_flattened.json"));
+        schema = FieldSchema.compile(objectMapper.readTree(configJson));
+        stub = ParserStubServer.forSchema(schema).start();
+        CreateIsoMessage.setParserUrl(stub.getUrl());
+        specs = List.of(schema.byKey("2"), schema.byKey("4"), schema.byKey("48"), schema.byKey("90"));
+    }
+
+    @AfterAll
+    void tearDown() {
+        CreateIsoMessage.setParserUrl(null);
+        stub.close();
+    }
+
+    @Test
+    void testSendsEveryPair() throws IOException {
+        long count = new MutationCombinations(specs, CreateIsoMessage.TEST_CATEGORIES, 2).count();
+        TestSummary summary = new CombinationExecutor(schema, 2, Long.MAX_VALUE, 4, 7).validateCombinations(specs);
+
+        assert summary.totalTests == 1 + count : "Expected the base plus " + count + " combinations but got " + summary.totalTests;
+        assert summary.passedTests == 1 : "Only the base message should pass";
+        assert summary.expectedFailures + summary.unexpectedPasses == count : "Every combination should be sent";
+        assert summary.expectedFailures > 0 : "Stub should reject combinations of invalid values";
+        assert summary.timings.getByField().keySet().containsAll(List.of("2", "4", "48", "90")) :
+                "Timings should be kept per field, got " + summary.timings.getByField().keySet();
+    }
+
+    @Test
+    void testLimitsCombinations() throws IOException {
+        TestSummary summary = new CombinationExecutor(schema, 3, 10, 2, 4).validateCombinations(specs);
+        assert summary.totalTests == 11 : "Limit should cap the combinations sent, got " + summary.totalTests;
+        assert summary.fieldTested.contains("3-wise") : "Summary should name the strength, got " + summary.fieldTested;
+    }
+}
@@ -0,0 +1,403 @@
+package utilities;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Generates a {@link MessageCorpus}: N valid and mutated messages built from the config, written once so load
+ * and regression runs can replay them instead of building every message again.
+ * <p>
+ * Message i is generated from the seed and i alone: a field with sample data is drawn, the message gets the
+ * field's sample data and seeded defaults and, with probability invalidRatio, one of the field's invalid values
+ * in its place. The index records the expected outcome, the category and the field of every message.
+ * <p>
+ * Chunks of chunkSize messages are built in parallel on one thread per core into a heap buffer, then each chunk
+ * takes the next region of the file in chunk order and is copied into it through its own
+ * {@link MappedByteBuffer}. Only the chunks in flight are held in memory; written pages belong to the page cache,
+ * so the corpus can be larger than RAM. The file content does not depend on the number of threads.
+ */
+public class CorpusGenerator {
+    public static final String COUNT_PROPERTY = "iso.corpus.count";
+    public static final String FILE_PROPERTY = "iso.corpus.file";
+    public static final String INVALID_RATIO_PROPERTY = "iso.corpus.invalidRatio";
+    public static final String SEED_PROPERTY = "iso.corpus.seed";
+    public static final String THREADS_PROPERTY = "iso.corpus.threads";
+    public static final String CHUNK_SIZE_PROPERTY = "iso.corpus.chunkSize";
+    public static final long DEFAULT_COUNT = 1_000_000;
+    public static final String DEFAULT_FILE = "iso_corpus.bin";
+    public static final double DEFAULT_INVALID_RATIO = 0.2;
+    public static final int DEFAULT_CHUNK_SIZE = 4096;
+
+    private final FieldSchema schema;
+    private long count = DEFAULT_COUNT;
+    private double invalidRatio = DEFAULT_INVALID_RATIO;
+    private long seed = FieldValueGenerator.nextSeed();
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    /**
+     * @param schema the schema messages are built from
+     */
+    public CorpusGenerator(FieldSchema schema) {
+        this.schema = schema;
+    }
+
+    /**
+     * @param count the number of messages to write
+     * @return this generator
+     */
+    public CorpusGenerator withCount(long count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Count must be at least 1 but was " + count);
+        }
+        this.count = count;
+        return this;
+    }
+
+    /**
+     * @param invalidRatio fraction of messages, between 0 and 1, that carry an invalid value; 0 writes only
+     * valid messages and 1 only mutated ones
+     * @return this generator
+     */
+    public CorpusGenerator withInvalidRatio(double invalidRatio) {
+        this.invalidRatio = Math.min(1.0, Math.max(0.0, invalidRatio));
+        return this;
+    }
+
+    /**
+     * @param seed seeds every message, so a corpus can be regenerated
+     * @return this generator
+     */
+    public CorpusGenerator withSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * @param threads the number of threads building chunks
+     * @param chunkSize the number of messages each chunk holds
+     * @return this generator
+     */
+    public CorpusGenerator withParallelism(int threads, int chunkSize) {
+        if (threads < 1 || chunkSize < 1) {
+            throw new IllegalArgumentException("threads and chunkSize must be at least 1 but were "
+                    + threads + " and " + chunkSize);
+        }
+        this.threads = threads;
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * Applies -Diso.corpus.count, -Diso.corpus.invalidRatio, -Diso.corpus.seed, -Diso.corpus.threads and
+     * -Diso.corpus.chunkSize where set
+     * @return this generator
+     */
+    public CorpusGenerator withSystemProperties() {
+        withCount(Long.getLong(COUNT_PROPERTY, count));
+        withInvalidRatio(Double.parseDouble(System.getProperty(INVALID_RATIO_PROPERTY, String.valueOf(invalidRatio))));
+        Long configuredSeed = Long.getLong(SEED_PROPERTY);
+        if (configuredSeed != null) {
+            withSeed(configuredSeed);
+        }
+        return withParallelism(Integer.getInteger(THREADS_PROPERTY, threads), Integer.getInteger(CHUNK_SIZE_PROPERTY, chunkSize));
+    }
+
+    /**
+     * Writes the corpus and its sidecar index, replacing any existing files
+     * @param file the corpus file; the index is written next to it
+     * @return what was written
+     */
+    public CorpusReport write(Path file) throws IOException {
+        List<Target> valid = new ArrayList<>();
+        List<Target> invalid = new ArrayList<>();
+        buildTargets(valid, invalid);
+        if (valid.isEmpty() && invalid.isEmpty()) {
+            throw new IOException("No field in the config has sample data to build corpus messages from");
+        }
+
+        long start = System.nanoTime();
+        CorpusReport report = new CorpusReport(file, count);
+        try (FileChannel corpus = open(file); FileChannel index = open(MessageCorpus.indexPath(file))) {
+            byte[] indexHeader = indexHeader();
+            Sequencer sequencer = new Sequencer(MessageCorpus.CORPUS_HEADER_SIZE);
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            Semaphore permits = new Semaphore(threads * 2);
+            try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+                for (long chunk = 0; chunk * chunkSize < count && failure.get() == null; chunk++) {
+                    try {
+                        permits.acquire();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        sequencer.abort();
+                        throw new IOException("Interrupted while writing corpus", e);
+                    }
+                    long number = chunk;
+                    executor.submit(() -> {
+                        try {
+                            writeChunk(number, valid, invalid, corpus, index, indexHeader.length, sequencer, report);
+                        } catch (Throwable e) {
+                            failure.compareAndSet(null, e);
+                            sequencer.abort();
+                        } finally {
+                            permits.release();
+                        }
+                    });
+                }
+            }
+            if (failure.get() != null) {
+                throw new IOException("Writing corpus failed: " + failure.get().getMessage(), failure.get());
+            }
+
+            long size = sequencer.nextOffset;
+            ByteBuffer header = ByteBuffer.allocate(MessageCorpus.CORPUS_HEADER_SIZE)
+                    .putLong(MessageCorpus.CORPUS_MAGIC).putLong(count).flip();
+            corpus.write(header, 0);
+            corpus.truncate(size);
+            index.write(ByteBuffer.wrap(indexHeader), 0);
+            report.bytes = size;
+        }
+        report.elapsedNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    private static FileChannel open(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Magic, message count and the category names, each as a 2-byte length and UTF-8 bytes
+     */
+    private byte[] indexHeader() {
+        IsoMessageEncoder header = new IsoMessageEncoder();
+        byte[] fixed = ByteBuffer.allocate(20).putLong(MessageCorpus.INDEX_MAGIC).putLong(count)
+                .putInt(CreateIsoMessage.TEST_CATEGORIES.size()).array();
+        header.writeBytes(fixed);
+        for (String testCategory : CreateIsoMessage.TEST_CATEGORIES) {
+            byte[] name = testCategory.getBytes(StandardCharsets.UTF_8);
+            header.writeBytes(new byte[]{(byte) (name.length >> 8), (byte) name.length});
+            header.writeBytes(name);
+        }
+        return header.toByteArray();
+    }
+
+    /**
+     * Builds one chunk, then copies it and its index entries into the files
+     */
+    private void writeChunk(long chunk, List<Target> valid, List<Target> invalid, FileChannel corpus,
+                            FileChannel index, int indexHeaderSize, Sequencer sequencer, CorpusReport report)
+            throws IOException, InterruptedException {
+        long from = chunk * chunkSize;
+        int messages = (int) Math.min(chunkSize, count - from);
+        IsoMessageBuilder builder = new IsoMessageBuilder(schema);
+        IsoMessageEncoder frames = new IsoMessageEncoder(messages * 256);
+        ByteBuffer entries = ByteBuffer.allocate(messages * MessageCorpus.INDEX_ENTRY_SIZE);
+        byte[] frameHeader = new byte[MessageCorpus.FRAME_HEADER_SIZE];
+        long invalidCount = 0;
+
+        for (int i = 0; i < messages; i++) {
+            SplittableRandom random = new SplittableRandom(seed + (from + i) * 0x9E3779B97F4A7C15L);
+            boolean mutate = valid.isEmpty() || (!invalid.isEmpty() && random.nextDouble() < invalidRatio);
+            List<Target> pool = mutate ? invalid : valid;
+            Target target = pool.get(random.nextInt(pool.size()));
+
+            builder.reset();
+            builder.setField(target.spec, target.sampleValue);
+            builder.generateDefaultFields(random.nextLong());
+            int category = MessageCorpus.VALID;
+            if (mutate) {
+                int k = random.nextInt(target.categories.length);
+                builder.setField(target.spec, target.invalidValues[k]);
+                category = target.categories[k];
+                invalidCount++;
+            }
+            IsoMessageEncoder message = builder.encode();
+
+            // Offsets are relative to the chunk until its region of the file is known
+            entries.putLong(frames.length()).putInt(message.length())
+                    .put((byte) (mutate ? 1 : 0)).put((byte) category).putShort((short) target.spec.number);
+            ByteBuffer.wrap(frameHeader).putInt(message.length());
+            frames.writeBytes(frameHeader);
+            frames.writeBytes(message.array(), 0, message.length());
+        }
+
+        long offset = sequencer.reserve(chunk, frames.length());
+        MappedByteBuffer region = corpus.map(FileChannel.MapMode.READ_WRITE, offset, frames.length());
+        region.put(frames.array(), 0, frames.length());
+
+        for (int i = 0; i < messages; i++) {
+            int position = i * MessageCorpus.INDEX_ENTRY_SIZE;
+            entries.putLong(position, entries.getLong(position) + offset);
+        }
+        MappedByteBuffer indexRegion = index.map(FileChannel.MapMode.READ_WRITE,
+                indexHeaderSize + from * MessageCorpus.INDEX_ENTRY_SIZE, entries.capacity());
+        indexRegion.put(entries.flip());
+        report.invalid.addAndGet(invalidCount);
+    }
+
+    /**
+     * Resolves every field's sample data and invalid values once. Fields with sample data go into the valid
+     * pool, and also into the invalid pool if they have invalid values.
+     */
+    private void buildTargets(List<Target> valid, List<Target> invalid) {
+        for (FieldSpec spec : schema.all()) {
+            if (!(spec.isMti() || spec.isDataElement()) || spec.sampleData == null) continue;
+            String sampleValue;
+            try {
+                sampleValue = IsoMessageBuilder.prepareValue(spec, spec.sampleData, spec.type.configName);
+            } catch (Exception e) {
+                EventLog.console().summary("corpus.skipped", "Warning: Skipping field " + spec.key + ": " + e.getMessage());
+                continue;
+            }
+            List<Integer> categories = new ArrayList<>();
+            List<String> invalidValues = new ArrayList<>();
+            for (int c = 0; c < CreateIsoMessage.TEST_CATEGORIES.size(); c++) {
+                String testCategory = CreateIsoMessage.TEST_CATEGORIES.get(c);
+                if (!spec.hasInvalidValue(testCategory)) continue;
+                try {
+                    invalidValues.add(IsoMessageBuilder.prepareValue(spec, spec.getInvalidValue(testCategory), spec.type.configName));
+                    categories.add(c);
+                } catch (Exception e) {
+                    EventLog.console().summary("corpus.skipped", "Warning: Skipping " + testCategory + " for field " + spec.key + ": " + e.getMessage());
+                }
+            }
+            Target target = new Target(spec, sampleValue, categories.stream().mapToInt(Integer::intValue).toArray(),
+                    invalidValues.toArray(new String[0]));
+            valid.add(target);
+            if (!invalidValues.isEmpty()) {
+                invalid.add(target);
+            }
+        }
+    }
+
+    /**
+     * A field messages are built around, with its resolved sample data and invalid values
+     */
+    private static final class Target {
+        final FieldSpec spec;
+        final String sampleValue;
+        // Indexes into CreateIsoMessage.TEST_CATEGORIES, one per invalid value
+        final int[] categories;
+        final String[] invalidValues;
+
+        Target(FieldSpec spec, String sampleValue, int[] categories, String[] invalidValues) {
+            this.spec = spec;
+            this.sampleValue = sampleValue;
+            this.categories = categories;
+            this.invalidValues = invalidValues;
+        }
+    }
+
+    /**
+     * Hands out file regions in chunk order, so the layout is the same however chunks finish
+     */
+    private static final class Sequencer {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition turn = lock.newCondition();
+        private long nextChunk;
+        private long nextOffset;
+        private boolean aborted;
+
+        Sequencer(long firstOffset) {
+            this.nextOffset = firstOffset;
+        }
+
+        long reserve(long chunk, int size) throws InterruptedException, IOException {
+            lock.lock();
+            try {
+                while (nextChunk != chunk && !aborted) {
+                    turn.await();
+                }
+                if (aborted) {
+                    throw new IOException("Corpus write aborted");
+                }
+                long offset = nextOffset;
+                nextOffset += size;
+                nextChunk++;
+                turn.signalAll();
+                return offset;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void abort() {
+            lock.lock();
+            try {
+                aborted = true;
+                turn.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * What a corpus run wrote
+     */
+    public static final class CorpusReport {
+        public final Path file;
+        public final long messages;
+        private final AtomicLong invalid = new AtomicLong();
+        long bytes;
+        long elapsedNanos;
+
+        CorpusReport(Path file, long messages) {
+            this.file = file;
+            this.messages = messages;
+        }
+
+        public long getInvalid() {
+            return invalid.get();
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * @return messages written per second
+         */
+        public double getMessagesPerSecond() {
+            return elapsedNanos == 0 ? 0 : messages * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        public void print(PrintStream out) {
+            out.println("Corpus " + file + ": " + messages + " messages (" + getInvalid() + " mutated), "
+                    + bytes + " bytes");
+            out.println("Index " + MessageCorpus.indexPath(file));
+            out.println(String.format("Written in %.1f s, %.0f messages/s", elapsedNanos / 1_000_000_000.0,
+                    getMessagesPerSecond()));
+        }
+    }
+
+    /**
+     * Generates a corpus from a config with the -Diso.corpus.* settings and prints what was written
+     * @param args [config file], relative to src/test/resources, defaulting to iso_config_extended_flattened.json;
+     * the corpus goes to -Diso.corpus.file, defaulting to iso_corpus.bin
+     */
+    public static void main(String[] args) throws IOException {
+        CreateIsoMessage.loadConfig(args.length > 0 ? args[0] : "iso_config_extended_flattened.json");
+        CorpusReport report = new CorpusGenerator(CreateIsoMessage.getSchema())
+                .withSystemProperties()
+                .write(Path.of(System.getProperty(FILE_PROPERTY, DEFAULT_FILE)));
+        report.print(System.out);
+    }
+}
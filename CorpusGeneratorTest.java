@@ -0,0 +1,106 @@
+package utilities;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class CorpusGeneratorTest {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private FieldSchema schema;
+    private ParserStubServer stub;
+    private Path directory;
+
+    @BeforeAll
+    void setup() throws IOException {
+        String configJson = Files.readString(Path.of("iso_config_extended_flattened.json"));
+        schema = FieldSchema.compile(objectMapper.readTree(configJson));
+        stub = ParserStubServer.forSchema(schema).start();
+        directory = Files.createTempDirectory("corpus");
+    }
+
+    @AfterAll
+    void tearDown() throws IOException {
+        stub.close();
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    @Test
+    void testWritesAndReadsBack() throws IOException {
+        Path file = directory.resolve("parallel.bin");
+        CorpusGenerator.CorpusReport report = new CorpusGenerator(schema)
+                .withCount(5_000)
+                .withInvalidRatio(0.3)
+                .withSeed(5)
+                .withParallelism(4, 333)
+                .write(file);
+        assert report.getInvalid() > 0 && report.getInvalid() < 5_000 : "Corpus should mix valid and mutated messages";
+        assert Files.size(file) == report.getBytes() : "File should be truncated to the written frames";
+
+        try (MessageCorpus corpus = MessageCorpus.open(file)) {
+            assert corpus.size() == 5_000 : "Corpus should hold every message, got " + corpus.size();
+            AtomicLong mutated = new AtomicLong();
+            List<MessageCorpus.Entry> sample = new ArrayList<>();
+            corpus.forEach(entry -> {
+                if (entry.expectsError) mutated.incrementAndGet();
+                assert entry.expectsError != LoadGenerator.VALID_CATEGORY.equals(entry.category) :
+                        "Only mutated messages should expect an error: " + entry.category;
+                assert entry.length == entry.isoMessage.getBytes(StandardCharsets.UTF_8).length :
+                        "Index should hold the length of message " + entry.index;
+                if (entry.index % 997 == 0) sample.add(entry);
+            });
+            assert mutated.get() == report.getInvalid() : "Index should record every mutated message";
+
+            for (MessageCorpus.Entry expected : sample) {
+                MessageCorpus.Entry entry = corpus.entry(expected.index);
+                assert entry.isoMessage.equals(expected.isoMessage) && entry.category.equals(expected.category) :
+                        "Lookup should match iteration for message " + expected.index;
+            }
+        }
+    }
+
+    @Test
+    void testContentDoesNotDependOnParallelism() throws IOException {
+        Path parallel = directory.resolve("four-threads.bin");
+        Path serial = directory.resolve("one-thread.bin");
+        new CorpusGenerator(schema).withCount(2_000).withSeed(9).withParallelism(4, 64).write(parallel);
+        new CorpusGenerator(schema).withCount(2_000).withSeed(9).withParallelism(1, 2_000).write(serial);
+
+        assert Files.mismatch(parallel, serial) == -1 : "Corpus should be the same for any thread count and chunk size";
+        assert Files.mismatch(MessageCorpus.indexPath(parallel), MessageCorpus.indexPath(serial)) == -1 :
+                "Index should be the same for any thread count and chunk size";
+    }
+
+    @Test
+    void testReplaysUnderLoad() throws IOException {
+        Path file = directory.resolve("replay.bin");
+        new CorpusGenerator(schema).withCount(300).withInvalidRatio(0.5).withSeed(3).write(file);
+
+        try (MessageCorpus corpus = MessageCorpus.open(file)) {
+            LoadGenerator.LoadReport report = new LoadGenerator(schema, new HttpClientTransport(stub.getUrl()))
+                    .withRate(200, Duration.ofSeconds(1))
+                    .withCorpus(corpus)
+                    .run();
+            assert report.overall.getCount() == 200 : "Every scheduled message should be sent";
+            assert report.overall.getErrors() == 0 : "Every corpus message should be read and answered";
+            assert report.getByCategory().containsKey(LoadGenerator.VALID_CATEGORY) : "Valid messages should be reported";
+            assert report.getByCategory().size() > 1 : "Categories should come from the index";
+        }
+    }
+}
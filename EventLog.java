@@ -0,0 +1,351 @@
+package utilities;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Level-gated, structured test output, written to the console by a background thread.
+ * <p>
+ * Every event has a level, an event name, the field id and test category it belongs to and a message.
+ * -Diso.log.level picks how much is written: summary (run and field summaries, warnings about the
+ * setup), case (progress and verdict of every case, the default) or wire (full ISO messages and parser
+ * responses as well); off writes nothing. Wire dumps take a {@link Supplier}, so messages and responses are
+ * only formatted when the wire level is on. With -Diso.log.format=json every event is written as one JSON
+ * object per line instead of plain text.
+ * <p>
+ * Logging threads only put events into a bounded ring buffer; a single writer thread drains it and writes
+ * whole batches to System.out. A producer waits when the buffer is full, so no event is dropped.
+ * {@link #buffered()} logs collect their events and {@link #publish()} them as one block, which keeps a
+ * case's output together when cases run concurrently. {@link #flush()} waits until everything published
+ * so far has been written.
+ */
+public final class EventLog {
+    public static final String LEVEL_PROPERTY = "iso.log.level";
+    public static final String FORMAT_PROPERTY = "iso.log.format";
+    public static final String BUFFER_SIZE_PROPERTY = "iso.log.bufferSize";
+    public static final int DEFAULT_BUFFER_SIZE = 4096;
+
+    /**
+     * How much is written, from least to most
+     */
+    public enum Level {
+        OFF, SUMMARY, CASE, WIRE;
+
+        /** The name written to the log, computed once and independent of the default locale */
+        public final String jsonName = name().toLowerCase(Locale.ROOT);
+
+        public static Level fromConfig(String value) {
+            for (Level level : values()) {
+                if (level.name().equalsIgnoreCase(value)) {
+                    return level;
+                }
+            }
+            throw new IllegalArgumentException("Unknown log level: " + value);
+        }
+    }
+
+    /**
+     * One logged event
+     */
+    public static final class Event {
+        public final long timestamp;
+        public final Level level;
+        public final String event;
+        public final String fieldId;
+        public final String testCategory;
+        public final String message;
+
+        Event(Level level, String event, String fieldId, String testCategory, String message) {
+            this.timestamp = System.currentTimeMillis();
+            this.level = level;
+            this.event = event;
+            this.fieldId = fieldId;
+            this.testCategory = testCategory;
+            this.message = message;
+        }
+    }
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+    private static volatile Level level = Level.fromConfig(System.getProperty(LEVEL_PROPERTY, "case"));
+    private static final boolean json = "json".equalsIgnoreCase(System.getProperty(FORMAT_PROPERTY));
+    private static final AsyncWriter writer = new AsyncWriter(Integer.getInteger(BUFFER_SIZE_PROPERTY, DEFAULT_BUFFER_SIZE));
+    private static final EventLog console = new EventLog(null, null, null);
+
+    // Events waiting for publish(), shared with logs derived through forField/forCase; null writes directly
+    private final List<Event> pending;
+    private final String fieldId;
+    private final String testCategory;
+
+    private EventLog(List<Event> pending, String fieldId, String testCategory) {
+        this.pending = pending;
+        this.fieldId = fieldId;
+        this.testCategory = testCategory;
+    }
+
+    /**
+     * @return the log that hands every event straight to the writer
+     */
+    public static EventLog console() {
+        return console;
+    }
+
+    /**
+     * Creates a log that keeps its events until {@link #publish()}. It must be confined to one thread at a time.
+     * @return the log
+     */
+    public static EventLog buffered() {
+        return new EventLog(new ArrayList<>(), null, null);
+    }
+
+    /**
+     * @param fieldId the field later events belong to
+     * @return a log tagging its events with the field, writing to the same place as this one
+     */
+    public EventLog forField(String fieldId) {
+        return new EventLog(pending, fieldId, null);
+    }
+
+    /**
+     * @param fieldId the field later events belong to
+     * @param testCategory the test category later events belong to
+     * @return a log tagging its events with the field and category, writing to the same place as this one
+     */
+    public EventLog forCase(String fieldId, String testCategory) {
+        return new EventLog(pending, fieldId, testCategory);
+    }
+
+    public static Level getLevel() {
+        return level;
+    }
+
+    /**
+     * Changes the level for every log, e.g. from a test
+     * @param newLevel the most detailed level to write
+     */
+    public static void setLevel(Level newLevel) {
+        level = newLevel;
+    }
+
+    /**
+     * @param eventLevel the level to check
+     * @return true if events at that level are written
+     */
+    public static boolean isEnabled(Level eventLevel) {
+        return eventLevel != Level.OFF && eventLevel.compareTo(level) <= 0;
+    }
+
+    /**
+     * Logs an event at summary level
+     */
+    public void summary(String event, String message) {
+        log(Level.SUMMARY, event, message);
+    }
+
+    /**
+     * Logs an event at case level
+     */
+    public void info(String event, String message) {
+        log(Level.CASE, event, message);
+    }
+
+    /**
+     * Logs a message or response dump at wire level; the payload is only formatted if the level is on
+     * @param event the event name
+     * @param label printed before the payload, e.g. "ISO Message: "
+     * @param payload produces the dumped text
+     */
+    public void wire(String event, String label, Supplier<?> payload) {
+        if (isEnabled(Level.WIRE)) {
+            log(Level.WIRE, event, label + payload.get());
+        }
+    }
+
+    /**
+     * Logs an event if its level is enabled
+     * @param eventLevel the event's level
+     * @param event the event name, e.g. "case.result"
+     * @param message the text written in plain format
+     */
+    public void log(Level eventLevel, String event, String message) {
+        if (!isEnabled(eventLevel)) {
+            return;
+        }
+        Event logged = new Event(eventLevel, event, fieldId, testCategory, message);
+        if (pending != null) {
+            pending.add(logged);
+        } else {
+            writer.put(logged);
+        }
+    }
+
+    /**
+     * Moves another buffered log's events to the end of this one, or publishes them if this log is direct
+     * @param other the log to take the events from
+     */
+    public void append(EventLog other) {
+        if (other.pending == null || other.pending.isEmpty()) {
+            return;
+        }
+        if (pending != null) {
+            pending.addAll(other.pending);
+            other.pending.clear();
+        } else {
+            other.publish();
+        }
+    }
+
+    /**
+     * Hands the collected events to the writer as one block, so no other output is written between them
+     */
+    public void publish() {
+        if (pending != null && !pending.isEmpty()) {
+            writer.put(pending.toArray(new Event[0]));
+            pending.clear();
+        }
+    }
+
+    /**
+     * Waits until every event published so far has been written
+     */
+    public static void flush() {
+        writer.flush();
+    }
+
+    static String format(Event event, boolean asJson) {
+        if (!asJson) {
+            return event.message;
+        }
+        StringWriter line = new StringWriter();
+        try (JsonGenerator generator = jsonFactory.createGenerator(line)) {
+            generator.writeStartObject();
+            generator.writeNumberField("ts", event.timestamp);
+            generator.writeStringField("level", event.level.jsonName);
+            generator.writeStringField("event", event.event);
+            if (event.fieldId != null) {
+                generator.writeStringField("field", event.fieldId);
+            }
+            if (event.testCategory != null) {
+                generator.writeStringField("category", event.testCategory);
+            }
+            generator.writeStringField("message", event.message.strip());
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return line.toString();
+    }
+
+    /**
+     * Single-consumer ring buffer of events and event blocks, drained by a daemon thread
+     */
+    private static final class AsyncWriter implements Runnable {
+        private final Object[] ring;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notEmpty = lock.newCondition();
+        private final Condition notFull = lock.newCondition();
+        private final Condition written = lock.newCondition();
+        private int head;
+        private int size;
+        private long publishedCount;
+        private long writtenCount;
+
+        AsyncWriter(int capacity) {
+            this.ring = new Object[Math.max(16, capacity)];
+            Thread thread = new Thread(this, "iso-event-log");
+            thread.setDaemon(true);
+            thread.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "iso-event-log-flush"));
+        }
+
+        void put(Object item) {
+            lock.lock();
+            try {
+                while (size == ring.length) {
+                    notFull.awaitUninterruptibly();
+                }
+                ring[(head + size) % ring.length] = item;
+                size++;
+                publishedCount++;
+                notEmpty.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void flush() {
+            lock.lock();
+            try {
+                long target = publishedCount;
+                while (writtenCount < target) {
+                    // Bounded wait so a broken console cannot hang the caller forever
+                    if (!written.await(5, TimeUnit.SECONDS)) {
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void run() {
+            List<Object> batch = new ArrayList<>();
+            StringBuilder text = new StringBuilder();
+            while (true) {
+                lock.lock();
+                try {
+                    while (size == 0) {
+                        notEmpty.awaitUninterruptibly();
+                    }
+                    for (; size > 0; size--) {
+                        batch.add(ring[head]);
+                        ring[head] = null;
+                        head = (head + 1) % ring.length;
+                    }
+                    notFull.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+
+                try {
+                    for (Object item : batch) {
+                        if (item instanceof Event[]) {
+                            for (Event event : (Event[]) item) {
+                                text.append(format(event, json)).append(System.lineSeparator());
+                            }
+                        } else {
+                            text.append(format((Event) item, json)).append(System.lineSeparator());
+                        }
+                    }
+                    System.out.print(text);
+                    System.out.flush();
+                } catch (RuntimeException e) {
+                    System.err.println("Event log writer dropped " + batch.size() + " entries: " + e.getMessage());
+                } finally {
+                    lock.lock();
+                    try {
+                        writtenCount += batch.size();
+                        written.signalAll();
+                    } finally {
+                        lock.unlock();
+                    }
+                    batch.clear();
+                    text.setLength(0);
+                }
+            }
+        }
+    }
+}
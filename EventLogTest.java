@@ -0,0 +1,107 @@
+package utilities;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class EventLogTest {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private PrintStream originalOut;
+    private EventLog.Level originalLevel;
+    private ByteArrayOutputStream captured;
+
+    @BeforeAll
+    void captureOutput() {
+        EventLog.flush();
+        originalOut = System.out;
+        originalLevel = EventLog.getLevel();
+        captured = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(captured, true, StandardCharsets.UTF_8));
+    }
+
+    @AfterAll
+    void restoreOutput() {
+        EventLog.flush();
+        System.setOut(originalOut);
+        EventLog.setLevel(originalLevel);
+    }
+
+    private void clearOutput() {
+        EventLog.flush();
+        captured.reset();
+    }
+
+    private String output() {
+        EventLog.flush();
+        return captured.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testLevelGating() {
+        clearOutput();
+        EventLog.setLevel(EventLog.Level.CASE);
+        AtomicBoolean formatted = new AtomicBoolean();
+        EventLog log = EventLog.console().forCase("2", "invalid_type_value");
+
+        log.summary("test.summary", "summary line");
+        log.info("test.case", "case line");
+        log.wire("test.wire", "ISO Message: ", () -> {
+            formatted.set(true);
+            return "0100";
+        });
+
+        String printed = output();
+        assert printed.contains("summary line") && printed.contains("case line") : "Enabled levels should be written";
+        assert !printed.contains("ISO Message") : "Wire level should be off";
+        assert !formatted.get() : "Wire payload should not be formatted when the level is off";
+
+        EventLog.setLevel(EventLog.Level.WIRE);
+        log.wire("test.wire", "ISO Message: ", () -> "0100");
+        assert output().contains("ISO Message: 0100") : "Wire level should be written once enabled";
+    }
+
+    @Test
+    void testBufferedLogsPublishInOrder() {
+        clearOutput();
+        EventLog.setLevel(EventLog.Level.CASE);
+        EventLog field = EventLog.buffered().forField("3");
+        EventLog first = EventLog.buffered().forCase("3", "invalid_type_value");
+        EventLog second = EventLog.buffered().forCase("3", "invalid_empty_value");
+
+        second.info("test.case", "second case");
+        first.info("test.case", "first case");
+        field.info("test.field", "field header");
+        assert !output().contains("field header") : "Buffered events should wait for publish";
+
+        field.append(first);
+        field.append(second);
+        field.publish();
+        String printed = output();
+        int header = printed.indexOf("field header");
+        int firstCase = printed.indexOf("first case");
+        int secondCase = printed.indexOf("second case");
+        assert header >= 0 && header < firstCase && firstCase < secondCase : "Events should keep append order, got " + printed;
+    }
+
+    @Test
+    void testJsonFormat() throws IOException {
+        EventLog.Event event = new EventLog.Event(EventLog.Level.CASE, "case.result", "4", "invalid_length_long_value", "\n✓ passed");
+        JsonNode json = objectMapper.readTree(EventLog.format(event, true));
+        assert json.get("level").asText().equals("case") : "Level should be written";
+        assert json.get("event").asText().equals("case.result") : "Event name should be written";
+        assert json.get("field").asText().equals("4") : "Field should be written";
+        assert json.get("category").asText().equals("invalid_length_long_value") : "Category should be written";
+        assert json.get("message").asText().equals("✓ passed") : "Message should be written without surrounding blank lines";
+        assert EventLog.format(event, false).equals("\n✓ passed") : "Plain format should write the message as is";
+    }
+}
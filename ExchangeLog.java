@@ -0,0 +1,263 @@
+package utilities;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only file of parser exchanges, one JSON object per line:
+ * {"hash": ..., "request": ..., "status": ..., "body": ...}, plus a {"defaultsSeed": ...} line recording the
+ * seed default field values were generated from.
+ * An in-memory index maps each message hash to the position of its records, so lookups read only the
+ * matching lines. When a message was recorded more than once the latest record wins.
+ * Appends and lookups are thread-safe.
+ */
+public class ExchangeLog implements Closeable {
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private final Path path;
+    private final FileChannel channel;
+    private final boolean readOnly;
+    private Long defaultsSeed;
+    // Message hash -> [offset, length] of every record with that hash, oldest first
+    private final Map<Long, List<long[]>> index = new HashMap<>();
+
+    /**
+     * Opens the log for appending, creating the file if needed, and indexes the records already in it
+     * @param path the log file
+     */
+    public ExchangeLog(Path path) throws IOException {
+        this(path, false);
+    }
+
+    /**
+     * Opens the log and indexes the records already in it
+     * @param path the log file
+     * @param readOnly true to only look up records; the file must exist and is never changed
+     */
+    public ExchangeLog(Path path, boolean readOnly) throws IOException {
+        this.path = path;
+        this.readOnly = readOnly;
+        this.channel = readOnly
+                ? FileChannel.open(path, StandardOpenOption.READ)
+                : FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buildIndex();
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Appends one exchange
+     * @param isoMessage the message sent to the parser
+     * @param response the parser's response
+     */
+    public void append(String isoMessage, ParserResponse response) throws IOException {
+        checkWritable();
+        long hash = hash(isoMessage);
+        ByteArrayOutputStream line = new ByteArrayOutputStream(isoMessage.length() + response.body.length() + 64);
+        try (JsonGenerator generator = jsonFactory.createGenerator(line)) {
+            generator.writeStartObject();
+            generator.writeStringField("hash", Long.toHexString(hash));
+            generator.writeStringField("request", isoMessage);
+            generator.writeNumberField("status", response.statusCode);
+            generator.writeStringField("body", response.body);
+            generator.writeEndObject();
+        }
+        line.write('\n');
+        byte[] bytes = line.toByteArray();
+
+        synchronized (this) {
+            long offset = write(bytes);
+            index.computeIfAbsent(hash, h -> new ArrayList<>(1)).add(new long[]{offset, bytes.length});
+        }
+    }
+
+    /**
+     * @return the seed default field values were generated from while recording, or null if none was recorded
+     */
+    public synchronized Long getDefaultsSeed() {
+        return defaultsSeed;
+    }
+
+    /**
+     * Records the seed default field values are generated from
+     * @param seed the seed
+     */
+    public void writeDefaultsSeed(long seed) throws IOException {
+        checkWritable();
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        try (JsonGenerator generator = jsonFactory.createGenerator(line)) {
+            generator.writeStartObject();
+            generator.writeNumberField("defaultsSeed", seed);
+            generator.writeEndObject();
+        }
+        line.write('\n');
+        synchronized (this) {
+            write(line.toByteArray());
+            defaultsSeed = seed;
+        }
+    }
+
+    private void checkWritable() throws IOException {
+        if (readOnly) {
+            throw new IOException("Exchange log " + path + " is open read-only");
+        }
+    }
+
+    private long write(byte[] bytes) throws IOException {
+        long offset = channel.size();
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, offset + buffer.position());
+        }
+        return offset;
+    }
+
+    /**
+     * Finds the latest recorded response for a message
+     * @param isoMessage the message
+     * @return the recorded response, or null if the message was never recorded
+     */
+    public ParserResponse lookup(String isoMessage) throws IOException {
+        List<long[]> records;
+        synchronized (this) {
+            List<long[]> indexed = index.get(hash(isoMessage));
+            if (indexed == null) {
+                return null;
+            }
+            records = new ArrayList<>(indexed);
+        }
+        // Newest first; a different message with the same hash is skipped
+        for (int i = records.size() - 1; i >= 0; i--) {
+            Record record = read(records.get(i)[0], (int) records.get(i)[1]);
+            if (isoMessage.equals(record.request)) {
+                return new ParserResponse(record.status, record.body);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the number of distinct message hashes in the log
+     */
+    public synchronized int size() {
+        return index.size();
+    }
+
+    private void buildIndex() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        long lineStart = 0;
+        long position = 0;
+        while (channel.read(buffer, position) > 0) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                byte b = buffer.get();
+                position++;
+                if (b == '\n') {
+                    indexLine(line.toByteArray(), lineStart);
+                    line.reset();
+                    lineStart = position;
+                } else {
+                    line.write(b);
+                }
+            }
+            buffer.clear();
+        }
+        if (line.size() > 0 && !readOnly) {
+            // A partial record from an interrupted run; drop it so the next append starts on a fresh line.
+            // Read-only logs just leave it out of the index.
+            channel.truncate(lineStart);
+        }
+    }
+
+    private void indexLine(byte[] line, long offset) throws IOException {
+        if (line.length == 0) {
+            return;
+        }
+        // "hash" is always written first, so only the start of the line is parsed
+        try (JsonParser parser = jsonFactory.createParser(line)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT || parser.nextToken() != JsonToken.FIELD_NAME) {
+                return;
+            }
+            String name = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (name.equals("hash") && value == JsonToken.VALUE_STRING) {
+                long hash = Long.parseUnsignedLong(parser.getText(), 16);
+                index.computeIfAbsent(hash, h -> new ArrayList<>(1)).add(new long[]{offset, line.length + 1});
+            } else if (name.equals("defaultsSeed") && value == JsonToken.VALUE_NUMBER_INT) {
+                defaultsSeed = parser.getLongValue();
+            }
+        }
+    }
+
+    private Record read(long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Exchange log " + path + " ends inside the record at " + offset);
+            }
+        }
+        Record record = new Record();
+        try (JsonParser parser = jsonFactory.createParser(buffer.array())) {
+            parser.nextToken();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                parser.nextToken();
+                switch (name) {
+                    case "request":
+                        record.request = parser.getText();
+                        break;
+                    case "status":
+                        record.status = parser.getIntValue();
+                        break;
+                    case "body":
+                        record.body = parser.getText();
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+        }
+        return record;
+    }
+
+    private static class Record {
+        String request;
+        int status;
+        String body;
+    }
+
+    /**
+     * 64-bit FNV-1a over the message's UTF-8 bytes
+     */
+    static long hash(String isoMessage) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : isoMessage.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
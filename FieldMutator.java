@@ -0,0 +1,369 @@
+package utilities;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Generates invalid values for a field from its compiled validation rules instead of the fixed
+ * invalid_*_value strings: off-by-one and oversized lengths, empty values, characters outside allowedChars,
+ * control and non-ASCII characters, length indicators that disagree with the value and messages cut off
+ * inside the field.
+ * <p>
+ * A case is generated from a seed alone, so any case can be regenerated, and knows how to produce smaller
+ * cases that still break the same rule for shrinking. Cases are rendered by splicing into a
+ * {@link MessageTemplate} of a valid base message that carries the field.
+ */
+public final class FieldMutator {
+    // Control and non-ASCII characters, including digits that Character.isDigit accepts
+    private static final String NON_ASCII = "\u0000\u001F\u007F\u00A0\u00E9\u0660\u0966\u20AC\uFF10\uFFFD";
+    private static final Map<FieldSpec, String> disallowedAlphabets = new ConcurrentHashMap<>();
+
+    /**
+     * Rule a generated case breaks
+     */
+    public enum Mutation {
+        LENGTH_UNDER("fixed-length value shorter than its length"),
+        LENGTH_OVER("value longer than its length or maximum length"),
+        EMPTY("empty value"),
+        ILLEGAL_CHAR("one character outside allowedChars"),
+        ILLEGAL_CHARS("only characters outside allowedChars"),
+        NON_ASCII("one control or non-ASCII character"),
+        PREFIX_SHORT("length indicator smaller than the value"),
+        PREFIX_LONG("length indicator larger than the value"),
+        PREFIX_NON_NUMERIC("length indicator that is not numeric"),
+        TRUNCATED("message ends inside the field");
+
+        public final String description;
+
+        Mutation(String description) {
+            this.description = description;
+        }
+
+        /**
+         * @param spec the field
+         * @return true if the mutation can be applied to the field
+         */
+        public boolean appliesTo(FieldSpec spec) {
+            switch (this) {
+                case LENGTH_UNDER:
+                    return !spec.format.isVariable() && spec.length > 1;
+                case ILLEGAL_CHAR:
+                case ILLEGAL_CHARS:
+                    return !disallowedAlphabet(spec).isEmpty();
+                case PREFIX_SHORT:
+                case PREFIX_LONG:
+                case PREFIX_NON_NUMERIC:
+                    return spec.format.isVariable() && spec.isDataElement();
+                case TRUNCATED:
+                    return spec.isDataElement();
+                default:
+                    return true;
+            }
+        }
+    }
+
+    /**
+     * One generated invalid case: the raw field value, plus the length indicator written instead of the
+     * real one for PREFIX_* mutations and the number of the field's encoded characters kept for TRUNCATED
+     */
+    public static final class FuzzCase {
+        public final FieldSpec spec;
+        public final Mutation mutation;
+        public final String value;
+        public final String prefix;
+        public final int kept;
+
+        FuzzCase(FieldSpec spec, Mutation mutation, String value, String prefix, int kept) {
+            this.spec = spec;
+            this.mutation = mutation;
+            this.value = value;
+            this.prefix = prefix;
+            this.kept = kept;
+        }
+
+        /**
+         * @return true if the case still breaks its rule, which shrinking must preserve
+         */
+        public boolean isInvalid() {
+            switch (mutation) {
+                case PREFIX_SHORT:
+                case PREFIX_LONG:
+                    return value.length() > 0 && Integer.parseInt(prefix) != value.length();
+                case PREFIX_NON_NUMERIC:
+                    return !isDigits(prefix);
+                case TRUNCATED:
+                    return kept < spec.format.lengthIndicatorSize + value.length();
+                default:
+                    return violatesRules(spec, value);
+            }
+        }
+
+        /**
+         * Writes the base message with this case applied into an encoder
+         * @param template the valid base message, which must carry the field for PREFIX_* and TRUNCATED
+         * @param encoder the encoder to write into; it is reset first
+         * @return the message
+         */
+        public String render(MessageTemplate template, IsoMessageEncoder encoder) {
+            template.splice(spec, value, encoder);
+            int length = encoder.length();
+            if (prefix != null || mutation == Mutation.TRUNCATED) {
+                int offset = template.offsetOf(spec.number);
+                if (offset < 0) {
+                    throw new IllegalStateException("Base message does not carry field " + spec.key);
+                }
+                if (prefix != null) {
+                    byte[] digits = prefix.getBytes(StandardCharsets.US_ASCII);
+                    System.arraycopy(digits, 0, encoder.array(), offset, digits.length);
+                }
+                if (mutation == Mutation.TRUNCATED) {
+                    length = offset + kept;
+                }
+            }
+            return new String(encoder.array(), 0, length, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Lists smaller or simpler cases that break the same rule: the value with chunks removed, allowed
+         * characters replaced by the first allowed character, and the length indicator or cut point moved
+         * towards the smallest violation
+         * @return the candidates, most aggressive first
+         */
+        public List<FuzzCase> shrinkCandidates() {
+            List<FuzzCase> candidates = new ArrayList<>();
+            for (int size = value.length() / 2; size >= 1; size /= 2) {
+                for (int start = 0; start + size <= value.length(); start += size) {
+                    addIfInvalid(candidates, withValue(value.substring(0, start) + value.substring(start + size)));
+                }
+            }
+
+            char simplest = simplestChar(spec);
+            char[] simplified = value.toCharArray();
+            boolean changed = false;
+            for (int i = 0; i < simplified.length; i++) {
+                if (spec.isAllowed(simplified[i]) && simplified[i] != simplest) {
+                    simplified[i] = simplest;
+                    changed = true;
+                }
+            }
+            if (changed) {
+                addIfInvalid(candidates, withValue(new String(simplified)));
+                for (int i = 0; i < value.length(); i++) {
+                    if (spec.isAllowed(value.charAt(i)) && value.charAt(i) != simplest) {
+                        addIfInvalid(candidates, withValue(value.substring(0, i) + simplest + value.substring(i + 1)));
+                    }
+                }
+            }
+
+            if (mutation == Mutation.PREFIX_SHORT || mutation == Mutation.PREFIX_LONG) {
+                int declared = Integer.parseInt(prefix);
+                int closer = declared + (value.length() - declared) / 2;
+                if (closer != declared) {
+                    addIfInvalid(candidates, new FuzzCase(spec, mutation, value, indicator(closer, prefix.length()), kept));
+                }
+            } else if (mutation == Mutation.TRUNCATED && kept > 0) {
+                addIfInvalid(candidates, new FuzzCase(spec, mutation, value, null, kept / 2));
+            }
+            return candidates;
+        }
+
+        private FuzzCase withValue(String shrunk) {
+            String shrunkPrefix = prefix;
+            if (mutation == Mutation.PREFIX_SHORT || mutation == Mutation.PREFIX_LONG) {
+                // Keep the indicator on the same side of the shorter value
+                int declared = Integer.parseInt(prefix);
+                int delta = declared - value.length();
+                shrunkPrefix = indicator(Math.max(0, shrunk.length() + delta), prefix.length());
+            }
+            return new FuzzCase(spec, mutation, shrunk, shrunkPrefix, Math.min(kept, spec.format.lengthIndicatorSize + shrunk.length()));
+        }
+
+        private static void addIfInvalid(List<FuzzCase> candidates, FuzzCase candidate) {
+            if (candidate.isInvalid()) {
+                candidates.add(candidate);
+            }
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder(spec.key + " " + mutation + " value='" + printable(value) + "'");
+            if (prefix != null) {
+                text.append(" indicator='").append(printable(prefix)).append("'");
+            }
+            if (mutation == Mutation.TRUNCATED) {
+                text.append(" kept=").append(kept);
+            }
+            return text.toString();
+        }
+    }
+
+    private FieldMutator() {
+    }
+
+    /**
+     * @param spec the field
+     * @return every mutation that can be applied to the field
+     */
+    public static List<Mutation> applicableMutations(FieldSpec spec) {
+        List<Mutation> mutations = new ArrayList<>();
+        for (Mutation mutation : Mutation.values()) {
+            if (mutation.appliesTo(spec)) {
+                mutations.add(mutation);
+            }
+        }
+        return mutations;
+    }
+
+    /**
+     * Generates one case, favouring lengths just past the boundary over arbitrary ones
+     * @param spec the field
+     * @param mutation the rule to break; it must apply to the field
+     * @param random the generator to draw from
+     * @return the case
+     */
+    public static FuzzCase generate(FieldSpec spec, Mutation mutation, SplittableRandom random) {
+        int limit = spec.format.isVariable() ? spec.maxLength : spec.length;
+        switch (mutation) {
+            case LENGTH_UNDER:
+                int under = random.nextBoolean() ? spec.length - 1 : 1 + random.nextInt(spec.length - 1);
+                return valueCase(spec, mutation, FieldValueGenerator.generate(spec, random, under));
+            case LENGTH_OVER:
+                int over = limit + 1 + (random.nextBoolean() ? 0 : random.nextInt(limit + 16));
+                return valueCase(spec, mutation, FieldValueGenerator.generate(spec, random, over));
+            case EMPTY:
+                return valueCase(spec, mutation, "");
+            case ILLEGAL_CHAR:
+                return valueCase(spec, mutation, replaceOne(validValue(spec, random), disallowedAlphabet(spec), random));
+            case ILLEGAL_CHARS:
+                String disallowed = disallowedAlphabet(spec);
+                char[] chars = new char[validLength(spec, random)];
+                for (int i = 0; i < chars.length; i++) {
+                    chars[i] = disallowed.charAt(random.nextInt(disallowed.length()));
+                }
+                return valueCase(spec, mutation, new String(chars));
+            case NON_ASCII:
+                return valueCase(spec, mutation, replaceOne(validValue(spec, random), NON_ASCII, random));
+            case PREFIX_SHORT: {
+                String value = validValue(spec, random);
+                int declared = random.nextBoolean() ? value.length() - 1 : random.nextInt(value.length());
+                return new FuzzCase(spec, mutation, value, indicator(declared, spec.format.lengthIndicatorSize), 0);
+            }
+            case PREFIX_LONG: {
+                String value = validValue(spec, random);
+                int widest = maxIndicator(spec.format.lengthIndicatorSize);
+                if (value.length() == widest) {
+                    value = value.substring(1);
+                }
+                int declared = random.nextBoolean() ? value.length() + 1
+                        : value.length() + 1 + random.nextInt(widest - value.length());
+                return new FuzzCase(spec, mutation, value, indicator(declared, spec.format.lengthIndicatorSize), 0);
+            }
+            case PREFIX_NON_NUMERIC: {
+                char[] prefix = indicator(random.nextInt(limit + 1), spec.format.lengthIndicatorSize).toCharArray();
+                prefix[random.nextInt(prefix.length)] = (char) ('A' + random.nextInt(26));
+                return new FuzzCase(spec, mutation, validValue(spec, random), new String(prefix), 0);
+            }
+            case TRUNCATED: {
+                String value = validValue(spec, random);
+                int encoded = spec.format.lengthIndicatorSize + value.length();
+                int kept = random.nextBoolean() ? encoded - 1 : random.nextInt(encoded);
+                return new FuzzCase(spec, mutation, value, null, kept);
+            }
+            default:
+                throw new IllegalArgumentException("Unknown mutation: " + mutation);
+        }
+    }
+
+    /**
+     * @return true if the value breaks the field's length or allowedChars rule
+     */
+    public static boolean violatesRules(FieldSpec spec, String value) {
+        boolean badLength = spec.format.isVariable()
+                ? value.isEmpty() || value.length() > spec.maxLength
+                : value.length() != spec.length;
+        return badLength || spec.indexOfDisallowed(value) >= 0;
+    }
+
+    /**
+     * @return the printable ASCII characters the field's allowedChars rule rejects
+     */
+    static String disallowedAlphabet(FieldSpec spec) {
+        return disallowedAlphabets.computeIfAbsent(spec, s -> {
+            StringBuilder alphabet = new StringBuilder();
+            for (char c = 0x20; c < 0x7F; c++) {
+                if (!s.isAllowed(c)) {
+                    alphabet.append(c);
+                }
+            }
+            return alphabet.toString();
+        });
+    }
+
+    private static FuzzCase valueCase(FieldSpec spec, Mutation mutation, String value) {
+        return new FuzzCase(spec, mutation, value, null, 0);
+    }
+
+    private static int validLength(FieldSpec spec, SplittableRandom random) {
+        return spec.format.isVariable() ? 1 + random.nextInt(Math.max(1, spec.maxLength)) : spec.length;
+    }
+
+    private static String validValue(FieldSpec spec, SplittableRandom random) {
+        return FieldValueGenerator.generate(spec, random, validLength(spec, random));
+    }
+
+    private static String replaceOne(String value, String replacements, SplittableRandom random) {
+        char[] chars = value.toCharArray();
+        chars[random.nextInt(chars.length)] = replacements.charAt(random.nextInt(replacements.length()));
+        return new String(chars);
+    }
+
+    private static char simplestChar(FieldSpec spec) {
+        String alphabet = spec.allowedAlphabet();
+        return alphabet.isEmpty() ? '0' : alphabet.charAt(0);
+    }
+
+    private static int maxIndicator(int digits) {
+        int max = 1;
+        for (int i = 0; i < digits; i++) {
+            max *= 10;
+        }
+        return max - 1;
+    }
+
+    private static String indicator(int length, int digits) {
+        StringBuilder text = new StringBuilder(String.valueOf(length));
+        while (text.length() < digits) {
+            text.insert(0, '0');
+        }
+        return text.toString();
+    }
+
+    private static boolean isDigits(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) < '0' || text.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the text with characters outside printable ASCII written as \\uXXXX
+     */
+    static String printable(String text) {
+        StringBuilder printable = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x20 || c >= 0x7F) {
+                printable.append(String.format("\\u%04X", (int) c));
+            } else {
+                printable.append(c);
+            }
+        }
+        return printable.toString();
+    }
+}
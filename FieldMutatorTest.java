@@ -0,0 +1,87 @@
+package utilities;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import utilities.FieldMutator.FuzzCase;
+import utilities.FieldMutator.Mutation;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SplittableRandom;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class FieldMutatorTest {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private FieldSchema schema;
+    private IsoMessageDecoder decoder;
+    private MessageTemplate template;
+
+    @BeforeAll
+    void setup() throws IOException {
+        String configJson = Files.readString(Path.of("iso_config_extended_flattened.json"));
+        schema = FieldSchema.compile(objectMapper.readTree(configJson));
+        decoder = new IsoMessageDecoder(schema);
+        template = MessageTemplate.of(new IsoMessageBuilder(schema)
+                .setField(schema.byKey("MTI"), "0200")
+                .setField(schema.byKey("2"), "5314451120000000")
+                .setField(schema.byKey("4"), "000000020000")
+                .setField(schema.byKey("48"), "13ABC1235MAX025"));
+    }
+
+    @Test
+    void testMutationsApplyByFormat() {
+        List<Mutation> fixed = FieldMutator.applicableMutations(schema.byKey("4"));
+        List<Mutation> lllvar = FieldMutator.applicableMutations(schema.byKey("48"));
+        List<Mutation> mti = FieldMutator.applicableMutations(schema.byKey("MTI"));
+        assert fixed.contains(Mutation.LENGTH_UNDER) && !fixed.contains(Mutation.PREFIX_SHORT) : "Fixed fields have no indicator";
+        assert lllvar.contains(Mutation.PREFIX_LONG) && !lllvar.contains(Mutation.LENGTH_UNDER) : "Variable fields have no exact length";
+        assert !mti.contains(Mutation.TRUNCATED) : "Only data elements can be cut off";
+    }
+
+    @Test
+    void testGeneratedCasesBreakTheirRuleAndAreRejected() {
+        SplittableRandom random = new SplittableRandom(42);
+        IsoMessageEncoder encoder = new IsoMessageEncoder();
+        for (String key : List.of("2", "4", "48")) {
+            FieldSpec spec = schema.byKey(key);
+            for (Mutation mutation : FieldMutator.applicableMutations(spec)) {
+                for (int i = 0; i < 50; i++) {
+                    FuzzCase fuzzCase = FieldMutator.generate(spec, mutation, random);
+                    assert fuzzCase.isInvalid() : "Generated case should break its rule: " + fuzzCase;
+                    String message = fuzzCase.render(template, encoder);
+                    assert !decoder.decode(message).isValid() : "Decoder should reject " + fuzzCase;
+                }
+            }
+        }
+    }
+
+    @Test
+    void testSameSeedGeneratesSameCase() {
+        FieldSpec spec = schema.byKey("48");
+        FuzzCase first = FieldMutator.generate(spec, Mutation.PREFIX_SHORT, new SplittableRandom(7));
+        FuzzCase second = FieldMutator.generate(spec, Mutation.PREFIX_SHORT, new SplittableRandom(7));
+        assert first.toString().equals(second.toString()) : "Cases should be reproducible from the seed";
+    }
+
+    @Test
+    void testShrinkCandidatesKeepTheRuleBroken() {
+        FieldSpec spec = schema.byKey("4");
+        FuzzCase illegal = new FuzzCase(spec, Mutation.ILLEGAL_CHAR, "12345X789012", null, 0);
+        List<FuzzCase> candidates = illegal.shrinkCandidates();
+        assert !candidates.isEmpty() : "A long value should have shrink candidates";
+        for (FuzzCase candidate : candidates) {
+            assert candidate.isInvalid() : "Candidate should still be invalid: " + candidate;
+        }
+        assert candidates.stream().anyMatch(c -> c.value.equals("00000X000000")) : "All allowed characters should be simplified at once";
+
+        FuzzCase prefix = new FuzzCase(schema.byKey("48"), Mutation.PREFIX_LONG, "ABCDE", "020", 0);
+        assert prefix.shrinkCandidates().stream().anyMatch(c -> c.prefix.equals("013")) :
+            "Indicator should move towards the real length";
+        assert !new FuzzCase(schema.byKey("48"), Mutation.PREFIX_LONG, "ABCDE", "005", 0).isInvalid() :
+            "Indicator matching the value is not a violation";
+    }
+}
@@ -0,0 +1,184 @@
+package utilities;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable, array-indexed schema compiled from the ISO config.
+ * Slot 0 holds the MTI, slot 1 the secondary bitmap (DE 1) and slots 2-128 the data elements.
+ * The primary bitmap and subfields such as "63.1" are kept outside the array.
+ */
+public final class FieldSchema {
+    public static final int MTI = 0;
+    public static final int SECONDARY_BITMAP = 1;
+    public static final int MAX_FIELD = 128;
+
+    private final FieldSpec[] fields;
+    private final FieldSpec primaryBitmap;
+    private final Map<String, FieldSpec> byKey;
+    private final Map<String, FieldSpec> byName;
+    private final Map<String, FieldSpec> byAlias;
+    private final Map<String, FieldSpec> byNameIgnoreCase;
+    private final List<FieldSpec> all;
+
+    private FieldSchema(FieldSpec[] fields, FieldSpec primaryBitmap, Map<String, FieldSpec> byKey) {
+        this.fields = fields;
+        this.primaryBitmap = primaryBitmap;
+        this.byKey = Collections.unmodifiableMap(byKey);
+        this.all = Collections.unmodifiableList(new ArrayList<>(byKey.values()));
+
+        // Name indexes are built once; the first entry in config order wins on duplicates
+        Map<String, FieldSpec> names = new HashMap<>();
+        Map<String, FieldSpec> aliases = new HashMap<>();
+        Map<String, FieldSpec> namesIgnoreCase = new HashMap<>();
+        for (FieldSpec spec : all) {
+            if (spec.name != null) {
+                names.putIfAbsent(spec.name, spec);
+                namesIgnoreCase.putIfAbsent(spec.name.toLowerCase(Locale.ROOT), spec);
+            }
+            for (String alias : spec.aliases) {
+                aliases.putIfAbsent(alias, spec);
+                namesIgnoreCase.putIfAbsent(alias.toLowerCase(Locale.ROOT), spec);
+            }
+        }
+        this.byName = Collections.unmodifiableMap(names);
+        this.byAlias = Collections.unmodifiableMap(aliases);
+        this.byNameIgnoreCase = Collections.unmodifiableMap(namesIgnoreCase);
+    }
+
+    /**
+     * Compiles the parsed ISO config into a schema
+     * @param root the root object of the config file
+     * @return the compiled schema
+     */
+    public static FieldSchema compile(JsonNode root) {
+        List<FieldSpec> specs = new ArrayList<>();
+        for (Iterator<Map.Entry<String, JsonNode>> it = root.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> entry = it.next();
+            try {
+                specs.add(FieldSpec.compile(entry.getKey(), entry.getValue()));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid config for field " + entry.getKey() + ": " + e.getMessage(), e);
+            }
+        }
+        return of(specs);
+    }
+
+    /**
+     * Builds a schema from already compiled specs
+     * @param specs the specs in config file order
+     * @return the schema
+     */
+    static FieldSchema of(List<FieldSpec> specs) {
+        FieldSpec[] fields = new FieldSpec[MAX_FIELD + 1];
+        FieldSpec primaryBitmap = null;
+        Map<String, FieldSpec> byKey = new LinkedHashMap<>();
+
+        for (FieldSpec spec : specs) {
+            byKey.put(spec.key, spec);
+            if (spec.key.equalsIgnoreCase("PrimaryBitmap")) {
+                primaryBitmap = spec;
+            } else if (spec.number != FieldSpec.NO_FIELD_NUMBER) {
+                fields[spec.number] = spec;
+            }
+        }
+        return new FieldSchema(fields, primaryBitmap, byKey);
+    }
+
+    /**
+     * Writes the schema in the compact binary form read by {@link #readFrom(DataInput)}
+     * @param out the destination
+     */
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(all.size());
+        for (FieldSpec spec : all) {
+            spec.writeTo(out);
+        }
+    }
+
+    /**
+     * Reads a schema written by {@link #writeTo(DataOutput)}
+     * @param in the source
+     * @return the schema
+     */
+    static FieldSchema readFrom(DataInput in) throws IOException {
+        int count = in.readInt();
+        List<FieldSpec> specs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            specs.add(FieldSpec.readFrom(in));
+        }
+        return of(specs);
+    }
+
+    /**
+     * Gets the spec for a message position
+     * @param fieldNumber 0 for MTI, 1 for the secondary bitmap, 2-128 for data elements
+     * @return the spec or null if the field is not configured
+     */
+    public FieldSpec field(int fieldNumber) {
+        return fieldNumber >= 0 && fieldNumber <= MAX_FIELD ? fields[fieldNumber] : null;
+    }
+
+    /**
+     * Gets the spec for a config key
+     * @param key the config key, e.g. "MTI" or "48"
+     * @return the spec or null if the key is not configured
+     */
+    public FieldSpec byKey(String key) {
+        return byKey.get(key);
+    }
+
+    /**
+     * Gets the spec whose "name" matches exactly
+     * @param name the field name used as JSONPATH in the feature files
+     * @return the spec or null if no field has that name
+     */
+    public FieldSpec byName(String name) {
+        return name == null ? null : byName.get(name);
+    }
+
+    /**
+     * Resolves a field by exact name, then by configured alias, then case-insensitively
+     * @param name the field name or alias
+     * @return the spec or null if nothing matches
+     */
+    public FieldSpec resolve(String name) {
+        if (name == null) {
+            return null;
+        }
+        FieldSpec spec = byName.get(name);
+        if (spec == null) {
+            spec = byAlias.get(name);
+        }
+        if (spec == null) {
+            spec = byNameIgnoreCase.get(name.toLowerCase(Locale.ROOT));
+        }
+        return spec;
+    }
+
+    public FieldSpec primaryBitmap() {
+        return primaryBitmap;
+    }
+
+    public FieldSpec secondaryBitmap() {
+        return fields[SECONDARY_BITMAP];
+    }
+
+    /**
+     * @return every configured entry in config file order
+     */
+    public List<FieldSpec> all() {
+        return all;
+    }
+}
@@ -0,0 +1,171 @@
+package utilities;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming loader for the ISO config.
+ * Reads the file token by token and keeps only the attributes {@link FieldSpec} uses, skipping notes,
+ * examples and rule descriptions without materializing them. Each entry is compiled as soon as it has
+ * been read, so at most one small entry is held as a tree at a time. Repeated values (formats, types,
+ * allowed character classes, invalid value descriptions) are shared between entries.
+ */
+public final class FieldSchemaReader {
+    private static final JsonFactory jsonFactory = new JsonFactory();
+    private static final JsonNodeFactory nodeFactory = JsonNodeFactory.instance;
+
+    // Per-load string pool; discarded with the reader so the pool does not outlive the schema
+    private final Map<String, String> strings = new HashMap<>();
+
+    private FieldSchemaReader() {
+    }
+
+    /**
+     * Reads and compiles a config file
+     * @param configPath the JSON config file
+     * @return the compiled schema
+     */
+    public static FieldSchema read(Path configPath) throws IOException {
+        try (InputStream in = Files.newInputStream(configPath)) {
+            return read(in);
+        }
+    }
+
+    /**
+     * Reads and compiles a config from a stream
+     * @param in the JSON config; not closed
+     * @return the compiled schema
+     */
+    public static FieldSchema read(InputStream in) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            return new FieldSchemaReader().readSchema(parser);
+        }
+    }
+
+    private FieldSchema readSchema(JsonParser parser) throws IOException {
+        expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+
+        List<FieldSpec> specs = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String key = intern(parser.getCurrentName());
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            ObjectNode entry = readEntry(parser);
+            try {
+                specs.add(FieldSpec.compile(key, entry));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid config for field " + key + ": " + e.getMessage(), e);
+            }
+        }
+        return FieldSchema.of(specs);
+    }
+
+    /**
+     * Reads one config entry, keeping only what {@link FieldSpec#compile} looks at
+     */
+    private ObjectNode readEntry(JsonParser parser) throws IOException {
+        ObjectNode entry = nodeFactory.objectNode();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String attribute = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            switch (attribute) {
+                case "name":
+                case "format":
+                case "type":
+                case "length":
+                case "max_length":
+                case "active":
+                case "SampleData":
+                    entry.set(attribute, readScalar(parser, token));
+                    break;
+                case "aliases":
+                    entry.set(attribute, readArray(parser, token));
+                    break;
+                case "validationRules":
+                    entry.set(attribute, readRules(parser, token));
+                    break;
+                default:
+                    if (attribute.startsWith("invalid_")) {
+                        entry.set(attribute, readScalar(parser, token));
+                    } else {
+                        parser.skipChildren();
+                    }
+            }
+        }
+        return entry;
+    }
+
+    private JsonNode readRules(JsonParser parser, JsonToken token) throws IOException {
+        ObjectNode rules = nodeFactory.objectNode();
+        if (token != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return rules;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String attribute = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if (attribute.equals("allowedChars")) {
+                rules.set(attribute, readScalar(parser, value));
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return rules;
+    }
+
+    private JsonNode readArray(JsonParser parser, JsonToken token) throws IOException {
+        ArrayNode array = nodeFactory.arrayNode();
+        if (token != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return array;
+        }
+        for (JsonToken element = parser.nextToken(); element != JsonToken.END_ARRAY; element = parser.nextToken()) {
+            array.add(readScalar(parser, element));
+        }
+        return array;
+    }
+
+    private JsonNode readScalar(JsonParser parser, JsonToken token) throws IOException {
+        switch (token) {
+            case VALUE_STRING:
+                return nodeFactory.textNode(intern(parser.getText()));
+            case VALUE_NUMBER_INT:
+                return nodeFactory.numberNode(parser.getLongValue());
+            case VALUE_NUMBER_FLOAT:
+                return nodeFactory.numberNode(parser.getDoubleValue());
+            case VALUE_TRUE:
+            case VALUE_FALSE:
+                return nodeFactory.booleanNode(token == JsonToken.VALUE_TRUE);
+            case VALUE_NULL:
+                return nodeFactory.nullNode();
+            default:
+                // Objects and arrays where a value is expected carry nothing FieldSpec can use
+                parser.skipChildren();
+                return nodeFactory.missingNode();
+        }
+    }
+
+    private String intern(String value) {
+        String existing = strings.putIfAbsent(value, value);
+        return existing != null ? existing : value;
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Expected " + expected + " but found " + actual + " at " + parser.getCurrentLocation());
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package utilities;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class FieldSchemaTest {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private JsonNode isoConfig;
+    private FieldSchema schema;
+
+    @BeforeAll
+    void setup() throws IOException {
+        String configJson = Files.readString(Path.of("iso_config_extended_flattened.json"));
+        isoConfig = objectMapper.readTree(configJson);
+        schema = FieldSchema.compile(isoConfig);
+    }
+
+    @Test
+    void testEveryConfigEntryIsCompiled() {
+        assert schema.all().size() == isoConfig.size() : "Every config entry should be compiled";
+        for (FieldSpec spec : schema.all()) {
+            assert spec == schema.byKey(spec.key) : "Key lookup should return the compiled spec for " + spec.key;
+            if (spec.isDataElement()) {
+                assert spec == schema.field(spec.number) : "Array slot should hold the spec for " + spec.key;
+            }
+        }
+    }
+
+    @Test
+    void testSpecialSlots() {
+        assert schema.field(FieldSchema.MTI).key.equals("MTI") : "Slot 0 should hold the MTI";
+        assert schema.secondaryBitmap().key.equals("SecondaryBitmap") : "Slot 1 should hold the secondary bitmap";
+        assert schema.primaryBitmap().isBitmap() : "Primary bitmap should be compiled with bitmap format";
+        assert schema.byKey("63.1").number == FieldSpec.NO_FIELD_NUMBER : "Subfields should not occupy a bitmap slot";
+    }
+
+    @Test
+    void testNameResolution() {
+        FieldSpec pan = schema.resolve("Primary Account Number (PAN)");
+        assert pan != null && pan.key.equals("2") : "Exact name should resolve to field 2";
+        assert schema.resolve("primary account number (pan)") == pan : "Lookup should fall back to case-insensitive match";
+        assert schema.byName("primary account number (pan)") == null : "Exact lookup should be case-sensitive";
+        assert schema.resolve("No Such Field") == null : "Unknown names should not resolve";
+    }
+
+    @Test
+    void testStreamingReaderMatchesTree() throws IOException {
+        FieldSchema streamed = FieldSchemaReader.read(Path.of("iso_config_extended_flattened.json"));
+        assert Arrays.equals(snapshotBytes(schema), snapshotBytes(streamed)) : "Streaming reader should compile the same schema";
+
+        // Values repeated across entries are shared
+        assert streamed.field(3).allowedChars == streamed.field(4).allowedChars : "Repeated strings should be shared";
+    }
+
+    private static byte[] snapshotBytes(FieldSchema schema) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        schema.writeTo(new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    @Test
+    void testAttributesMatchConfig() {
+        for (FieldSpec spec : schema.all()) {
+            JsonNode node = isoConfig.get(spec.key);
+            int expectedMax = node.has("max_length") ? node.get("max_length").asInt() : node.get("length").asInt();
+            assert spec.maxLength == expectedMax : "Max length mismatch for " + spec.key;
+            assert spec.format.configName.equals(node.get("format").asText()) : "Format mismatch for " + spec.key;
+            assert spec.type.configName.equals(node.get("type").asText()) : "Type mismatch for " + spec.key;
+            assert spec.name.equals(node.get("name").asText()) : "Name mismatch for " + spec.key;
+            for (String category : spec.invalidValues.keySet()) {
+                assert spec.getInvalidValue(category).equals(node.get(category).asText()) :
+                    "Invalid value mismatch for " + spec.key + " " + category;
+            }
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package utilities;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled, immutable view of a single entry in the ISO config.
+ * Built once at load time so the encode and validation paths never touch the Jackson tree.
+ */
+public final class FieldSpec {
+
+    /**
+     * Encoding format of a field as declared by the config "format" attribute
+     */
+    public enum Format {
+        FIXED("fixed", 0),
+        LLVAR("llvar", 2),
+        LLLVAR("lllvar", 3),
+        BITMAP("bitmap", 0),
+        HHMMSS("hhmmss", 0);
+
+        public final String configName;
+        public final int lengthIndicatorSize;
+
+        Format(String configName, int lengthIndicatorSize) {
+            this.configName = configName;
+            this.lengthIndicatorSize = lengthIndicatorSize;
+        }
+
+        public boolean isVariable() {
+            return lengthIndicatorSize > 0;
+        }
+
+        public static Format fromConfig(String value) {
+            for (Format format : values()) {
+                if (format.configName.equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Unknown field format: " + value);
+        }
+    }
+
+    /**
+     * Character domain of a field as declared by the config "type" attribute
+     */
+    public enum Type {
+        NUMERIC("numeric"),
+        ALPHANUMERIC("alphanumeric"),
+        BINARY("binary"),
+        HEX("hex");
+
+        public final String configName;
+
+        Type(String configName) {
+            this.configName = configName;
+        }
+
+        public static Type fromConfig(String value) {
+            for (Type type : values()) {
+                if (type.configName.equalsIgnoreCase(value)) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("Unknown field type: " + value);
+        }
+    }
+
+    /** Field number used for subfields (e.g. "63.1") that have no slot in the bitmap */
+    public static final int NO_FIELD_NUMBER = -1;
+
+    public final String key;
+    public final int number;
+    public final String name;
+    public final List<String> aliases;
+    public final Format format;
+    public final Type type;
+    public final int length;
+    public final int maxLength;
+    public final String allowedChars;
+    private final long[] allowedMask;
+    private final String allowedAlphabet;
+    public final boolean active;
+    public final String sampleData;
+    public final Map<String, String> invalidValues;
+    public final Map<String, String> invalidDescriptions;
+
+    FieldSpec(String key, int number, String name, List<String> aliases, Format format, Type type,
+              int length, int maxLength, String allowedChars, boolean active, String sampleData, Map<String, String> invalidValues,
+              Map<String, String> invalidDescriptions) {
+        this.key = key;
+        this.number = number;
+        this.name = name;
+        this.aliases = aliases;
+        this.format = format;
+        this.type = type;
+        this.length = length;
+        this.maxLength = maxLength;
+        this.allowedChars = allowedChars;
+        this.allowedMask = compileCharClass(allowedChars);
+        this.allowedAlphabet = alphabetOf(allowedMask);
+        this.active = active;
+        this.sampleData = sampleData;
+        this.invalidValues = invalidValues;
+        this.invalidDescriptions = invalidDescriptions;
+    }
+
+    /**
+     * Compiles a single config entry
+     * @param key the config key ("MTI", "PrimaryBitmap", "SecondaryBitmap", "2", "63.1", ...)
+     * @param node the config entry
+     * @return the compiled field spec
+     */
+    static FieldSpec compile(String key, JsonNode node) {
+        Format format = Format.fromConfig(node.get("format").asText());
+        Type type = Type.fromConfig(node.get("type").asText());
+        int length = node.has("length") ? node.get("length").asInt() : 0;
+        int maxLength = node.has("max_length") ? node.get("max_length").asInt() : length;
+
+        Map<String, String> invalidValues = new LinkedHashMap<>();
+        Map<String, String> invalidDescriptions = new LinkedHashMap<>();
+        for (Iterator<String> it = node.fieldNames(); it.hasNext(); ) {
+            String attribute = it.next();
+            if (attribute.startsWith("invalid_") && attribute.endsWith("_value")) {
+                invalidValues.put(attribute, node.get(attribute).asText());
+                String descriptionKey = attribute.substring(0, attribute.length() - "_value".length()) + "_description";
+                invalidDescriptions.put(attribute, node.has(descriptionKey) ? node.get(descriptionKey).asText() : attribute);
+            }
+        }
+
+        List<String> aliases = new ArrayList<>();
+        if (node.has("aliases")) {
+            for (JsonNode alias : node.get("aliases")) {
+                aliases.add(alias.asText());
+            }
+        }
+
+        JsonNode rules = node.get("validationRules");
+        String allowedChars = rules != null && rules.has("allowedChars")
+                ? rules.get("allowedChars").asText() : defaultAllowedChars(type);
+
+        return new FieldSpec(
+                key,
+                fieldNumberOf(key),
+                node.has("name") ? node.get("name").asText() : null,
+                Collections.unmodifiableList(aliases),
+                format,
+                type,
+                length,
+                maxLength,
+                allowedChars,
+                node.has("active") && node.get("active").asBoolean(),
+                node.has("SampleData") ? node.get("SampleData").asText() : null,
+                Collections.unmodifiableMap(invalidValues),
+                Collections.unmodifiableMap(invalidDescriptions));
+    }
+
+    /**
+     * Writes the spec in the binary snapshot form read by {@link #readFrom(DataInput)}
+     */
+    void writeTo(DataOutput out) throws IOException {
+        out.writeUTF(key);
+        writeNullable(out, name);
+        out.writeShort(aliases.size());
+        for (String alias : aliases) {
+            out.writeUTF(alias);
+        }
+        out.writeUTF(format.configName);
+        out.writeUTF(type.configName);
+        out.writeInt(length);
+        out.writeInt(maxLength);
+        out.writeUTF(allowedChars);
+        out.writeBoolean(active);
+        writeNullable(out, sampleData);
+        out.writeShort(invalidValues.size());
+        for (Map.Entry<String, String> entry : invalidValues.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeUTF(entry.getValue());
+            out.writeUTF(invalidDescriptions.get(entry.getKey()));
+        }
+    }
+
+    /**
+     * Reads a spec written by {@link #writeTo(DataOutput)}
+     */
+    static FieldSpec readFrom(DataInput in) throws IOException {
+        String key = in.readUTF();
+        String name = readNullable(in);
+        int aliasCount = in.readUnsignedShort();
+        List<String> aliases = new ArrayList<>(aliasCount);
+        for (int i = 0; i < aliasCount; i++) {
+            aliases.add(in.readUTF());
+        }
+        Format format = Format.fromConfig(in.readUTF());
+        Type type = Type.fromConfig(in.readUTF());
+        int length = in.readInt();
+        int maxLength = in.readInt();
+        String allowedChars = in.readUTF();
+        boolean active = in.readBoolean();
+        String sampleData = readNullable(in);
+        int invalidCount = in.readUnsignedShort();
+        Map<String, String> invalidValues = new LinkedHashMap<>();
+        Map<String, String> invalidDescriptions = new LinkedHashMap<>();
+        for (int i = 0; i < invalidCount; i++) {
+            String category = in.readUTF();
+            invalidValues.put(category, in.readUTF());
+            invalidDescriptions.put(category, in.readUTF());
+        }
+        return new FieldSpec(key, fieldNumberOf(key), name, Collections.unmodifiableList(aliases), format, type,
+                length, maxLength, allowedChars, active, sampleData,
+                Collections.unmodifiableMap(invalidValues), Collections.unmodifiableMap(invalidDescriptions));
+    }
+
+    private static void writeNullable(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * Maps a config key to its position in the message: 0 for MTI, 1 for the secondary bitmap (DE 1),
+     * the data element number for 2-128, and {@link #NO_FIELD_NUMBER} for everything else
+     */
+    static int fieldNumberOf(String key) {
+        if (key.equalsIgnoreCase("MTI")) {
+            return FieldSchema.MTI;
+        }
+        if (key.equalsIgnoreCase("SecondaryBitmap")) {
+            return FieldSchema.SECONDARY_BITMAP;
+        }
+        try {
+            int number = Integer.parseInt(key);
+            return number >= 1 && number <= 128 ? number : NO_FIELD_NUMBER;
+        } catch (NumberFormatException e) {
+            return NO_FIELD_NUMBER;
+        }
+    }
+
+    private static String defaultAllowedChars(Type type) {
+        switch (type) {
+            case NUMERIC:
+                return "0-9";
+            case BINARY:
+                return "0-1";
+            case HEX:
+                return "0-9A-Fa-f";
+            default:
+                return "a-zA-Z0-9";
+        }
+    }
+
+    /**
+     * Compiles a character class such as "a-zA-Z0-9" into a 128-bit ASCII mask
+     */
+    private static long[] compileCharClass(String charClass) {
+        long[] mask = new long[2];
+        for (int i = 0; i < charClass.length(); i++) {
+            char from = charClass.charAt(i);
+            char to = from;
+            if (i + 2 < charClass.length() && charClass.charAt(i + 1) == '-') {
+                to = charClass.charAt(i + 2);
+                i += 2;
+            }
+            for (char c = from; c <= to && c < 128; c++) {
+                mask[c >> 6] |= 1L << (c & 63);
+            }
+        }
+        return mask;
+    }
+
+    private static String alphabetOf(long[] mask) {
+        StringBuilder alphabet = new StringBuilder();
+        for (char c = 0; c < 128; c++) {
+            if ((mask[c >> 6] & (1L << (c & 63))) != 0) {
+                alphabet.append(c);
+            }
+        }
+        return alphabet.toString();
+    }
+
+    /**
+     * @return every ASCII character the allowedChars rule accepts, in ascending order
+     */
+    public String allowedAlphabet() {
+        return allowedAlphabet;
+    }
+
+    /**
+     * @param c the character to check
+     * @return true if the field's allowedChars rule accepts the character
+     */
+    public boolean isAllowed(char c) {
+        return c < 128 && (allowedMask[c >> 6] & (1L << (c & 63))) != 0;
+    }
+
+    /**
+     * @param value the raw field value
+     * @return the index of the first character outside allowedChars, or -1 if every character is allowed
+     */
+    public int indexOfDisallowed(CharSequence value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (!isAllowed(value.charAt(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean isMti() {
+        return number == FieldSchema.MTI;
+    }
+
+    public boolean isBitmap() {
+        return format == Format.BITMAP;
+    }
+
+    public boolean isDataElement() {
+        return number >= 2 && number <= 128;
+    }
+
+    public boolean hasInvalidValue(String testCategory) {
+        return invalidValues.containsKey(testCategory);
+    }
+
+    public String getInvalidValue(String testCategory) {
+        return invalidValues.get(testCategory);
+    }
+
+    public String getInvalidDescription(String testCategory) {
+        return invalidDescriptions.getOrDefault(testCategory, testCategory);
+    }
+
+    @Override
+    public String toString() {
+        return key + " (" + name + ")";
+    }
+}
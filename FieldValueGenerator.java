@@ -0,0 +1,135 @@
+package utilities;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Seedable, type-aware random values for default fields.
+ * Characters are drawn from each field's allowedChars (numeric, alphanumeric, hex, binary or the config's own
+ * rule) and written straight into char or byte buffers. Each message draws from its own {@link SplittableRandom},
+ * so generation never contends between threads.
+ * <p>
+ * Each message is generated from its own seed, the next value of a lock-free sequence mixed from one root seed,
+ * so short-lived virtual threads neither share a monitor nor keep per-thread state. Passing the same seed to
+ * {@link IsoMessageBuilder#generateDefaultFields(long)} rebuilds the same defaults, so a failing message can
+ * be reproduced from the seed printed with it. -Diso.random.seed=&lt;n&gt; seeds the root, which makes the
+ * sequence of message seeds repeatable for single-threaded runs. With -Diso.random.poolSize=&lt;n&gt; values are
+ * picked from n pre-generated values per field instead of being generated each time.
+ */
+public final class FieldValueGenerator {
+    public static final String SEED_PROPERTY = "iso.random.seed";
+    public static final String POOL_SIZE_PROPERTY = "iso.random.poolSize";
+
+    // Same increment SplittableRandom uses, so consecutive seeds are spread across the whole range
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private static final AtomicLong sequence = new AtomicLong(Long.getLong(SEED_PROPERTY) != null
+            ? Long.getLong(SEED_PROPERTY) : new SplittableRandom().nextLong());
+    // Pools per schema and size, keyed by field key
+    private static final Map<FieldSchema, Map<Integer, Map<String, String[]>>> pools = new ConcurrentHashMap<>();
+
+    private FieldValueGenerator() {
+    }
+
+    /**
+     * @return a fresh message seed
+     */
+    public static long nextSeed() {
+        return mix64(sequence.addAndGet(GOLDEN_GAMMA));
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * @return the configured pool size, or 0 if pooling is off
+     */
+    public static int configuredPoolSize() {
+        return Math.max(0, Integer.getInteger(POOL_SIZE_PROPERTY, 0));
+    }
+
+    /**
+     * Generates a default value at the field's maximum length, from the field's pool when pooling is on
+     * @param schema the schema the field belongs to
+     * @param spec the field
+     * @param random the message's generator
+     * @return the value
+     */
+    public static String value(FieldSchema schema, FieldSpec spec, SplittableRandom random) {
+        int poolSize = configuredPoolSize();
+        if (poolSize > 0) {
+            String[] pool = pool(schema, poolSize).get(spec.key);
+            if (pool != null) {
+                return pool[random.nextInt(pool.length)];
+            }
+        }
+        return generate(spec, random, spec.maxLength);
+    }
+
+    /**
+     * Generates a random value from the field's allowed characters
+     * @param spec the field
+     * @param random the generator to draw from
+     * @param length the number of characters
+     * @return the value
+     */
+    public static String generate(FieldSpec spec, SplittableRandom random, int length) {
+        // Not cached per thread: callers run on short-lived virtual threads that would each allocate one anyway
+        char[] buffer = new char[length];
+        fill(spec, random, buffer, 0, length);
+        return new String(buffer);
+    }
+
+    /**
+     * Writes random allowed characters into a char buffer
+     */
+    public static void fill(FieldSpec spec, SplittableRandom random, char[] target, int offset, int length) {
+        String alphabet = alphabet(spec);
+        int size = alphabet.length();
+        for (int i = offset; i < offset + length; i++) {
+            target[i] = alphabet.charAt(random.nextInt(size));
+        }
+    }
+
+    /**
+     * Writes random allowed characters into a byte buffer as ASCII, e.g. an encoder's array
+     */
+    public static void fill(FieldSpec spec, SplittableRandom random, byte[] target, int offset, int length) {
+        String alphabet = alphabet(spec);
+        int size = alphabet.length();
+        for (int i = offset; i < offset + length; i++) {
+            target[i] = (byte) alphabet.charAt(random.nextInt(size));
+        }
+    }
+
+    private static String alphabet(FieldSpec spec) {
+        String alphabet = spec.allowedAlphabet();
+        return alphabet.isEmpty() ? "0" : alphabet;
+    }
+
+    /**
+     * Gets the pre-generated values for every field, generating them on first use. Pools are generated from
+     * -Diso.random.seed (0 if unset) and the size, so runs with the same settings use the same values.
+     * @return pool values keyed by field key
+     */
+    static Map<String, String[]> pool(FieldSchema schema, int poolSize) {
+        return pools.computeIfAbsent(schema, s -> new ConcurrentHashMap<>())
+                .computeIfAbsent(poolSize, size -> {
+                    SplittableRandom random = new SplittableRandom(Long.getLong(SEED_PROPERTY, 0L) + size);
+                    Map<String, String[]> values = new ConcurrentHashMap<>();
+                    for (FieldSpec spec : schema.all()) {
+                        String[] pool = new String[size];
+                        for (int i = 0; i < size; i++) {
+                            pool[i] = generate(spec, random, spec.maxLength);
+                        }
+                        values.put(spec.key, pool);
+                    }
+                    return values;
+                });
+    }
+}
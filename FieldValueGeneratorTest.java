@@ -0,0 +1,81 @@
+package utilities;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class FieldValueGeneratorTest {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private FieldSchema schema;
+
+    @BeforeAll
+    void setup() throws IOException {
+        schema = FieldSchema.compile(objectMapper.readTree(
+                "{\"3\":{\"format\":\"fixed\",\"type\":\"numeric\",\"length\":6,\"active\":true},"
+                        + "\"48\":{\"format\":\"lllvar\",\"type\":\"alphanumeric\",\"max_length\":25,\"active\":true},"
+                        + "\"52\":{\"format\":\"fixed\",\"type\":\"hex\",\"length\":16,\"active\":true},"
+                        + "\"128\":{\"format\":\"fixed\",\"type\":\"binary\",\"length\":64,\"active\":true}}"));
+    }
+
+    @Test
+    void testValuesAreTypeAware() {
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < 100; i++) {
+            for (FieldSpec spec : schema.all()) {
+                String value = FieldValueGenerator.value(schema, spec, random);
+                assert value.length() == spec.maxLength : "Value should be generated at the maximum length";
+                assert spec.indexOfDisallowed(value) < 0 : "Value " + value + " is outside " + spec.allowedChars;
+            }
+        }
+    }
+
+    @Test
+    void testMessagesReproduceFromSeed() {
+        IsoMessageBuilder builder = new IsoMessageBuilder(schema).generateDefaultFields();
+        String original = builder.buildIsoMessage();
+        long seed = builder.getDefaultsSeed();
+
+        String next = new IsoMessageBuilder(schema).generateDefaultFields().buildIsoMessage();
+        assert !next.equals(original) : "Each message should get fresh defaults";
+
+        String reproduced = new IsoMessageBuilder(schema).generateDefaultFields(seed).buildIsoMessage();
+        assert reproduced.equals(original) : "The same seed should rebuild the same message";
+    }
+
+    @Test
+    void testPoolValuesAreReused() {
+        System.setProperty(FieldValueGenerator.POOL_SIZE_PROPERTY, "3");
+        try {
+            FieldSpec spec = schema.byKey("48");
+            List<String> pool = Arrays.asList(FieldValueGenerator.pool(schema, 3).get("48"));
+            SplittableRandom random = new SplittableRandom(11);
+            for (int i = 0; i < 50; i++) {
+                assert pool.contains(FieldValueGenerator.value(schema, spec, random)) : "Pooled values should come from the pool";
+            }
+        } finally {
+            System.clearProperty(FieldValueGenerator.POOL_SIZE_PROPERTY);
+        }
+    }
+
+    @Test
+    void testSeedsAreDistinctAcrossVirtualThreads() {
+        Set<Long> seeds = ConcurrentHashMap.newKeySet();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 1000; i++) {
+                executor.submit(() -> seeds.add(FieldValueGenerator.nextSeed()));
+            }
+        }
+        assert seeds.size() == 1000 : "Every task should get its own seed, got " + seeds.size() + " distinct";
+    }
+}
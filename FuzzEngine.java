@@ -0,0 +1,520 @@
+package utilities;
+
+import utilities.FieldMutator.FuzzCase;
+import utilities.FieldMutator.Mutation;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Fuzzing mode: sends a large stream of rule-driven invalid values for every field under test and checks the
+ * parser rejects each one. Values come from {@link FieldMutator}, which derives them from the field's
+ * allowedChars, length and format, and are spliced into a valid base message that carries the field.
+ * <p>
+ * A message the parser accepts is a finding. After the run every kept finding is shrunk: smaller cases that
+ * break the same rule are sent one after another and the first one the parser still accepts replaces the
+ * finding, until none does or the shrink budget is spent.
+ * <p>
+ * Cases are generated inside the tasks that send them, so nothing but counters and the kept findings is held
+ * in memory, whatever the number of cases. Case i is generated from the run seed and i alone; a finding can
+ * be regenerated by running again with the same -Diso.fuzz.seed and fields. Tasks of batchSize cases run on
+ * virtual threads, at most maxInFlight at a time, and send their cases as one batch request when batching is
+ * on (-Diso.parser.batch=true).
+ */
+public class FuzzEngine {
+    public static final String CASES_PROPERTY = "iso.fuzz.cases";
+    public static final String SEED_PROPERTY = "iso.fuzz.seed";
+    public static final String FIELDS_PROPERTY = "iso.fuzz.fields";
+    public static final String MAX_IN_FLIGHT_PROPERTY = "iso.fuzz.maxInFlight";
+    public static final String BATCH_SIZE_PROPERTY = "iso.fuzz.batchSize";
+    public static final String SHRINK_STEPS_PROPERTY = "iso.fuzz.shrinkSteps";
+    public static final String MAX_FINDINGS_PROPERTY = "iso.fuzz.maxFindings";
+    public static final long DEFAULT_CASES = 10_000;
+    public static final int DEFAULT_MAX_IN_FLIGHT = 16;
+    public static final int DEFAULT_BATCH_SIZE = 50;
+    public static final int DEFAULT_SHRINK_STEPS = 500;
+    public static final int DEFAULT_MAX_FINDINGS = 20;
+
+    private final FieldSchema schema;
+    private final ParserTransport transport;
+    private long cases = DEFAULT_CASES;
+    private long seed = FieldValueGenerator.nextSeed();
+    private List<String> fields = List.of();
+    private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private boolean batching;
+    private BatchCodec.Framing framing = BatchCodec.Framing.NEWLINE_DELIMITED;
+    private int shrinkSteps = DEFAULT_SHRINK_STEPS;
+    private int maxFindings = DEFAULT_MAX_FINDINGS;
+
+    /**
+     * @param schema the schema fields and base messages come from
+     * @param transport the transport cases are sent through
+     */
+    public FuzzEngine(FieldSchema schema, ParserTransport transport) {
+        this.schema = schema;
+        this.transport = transport;
+    }
+
+    /**
+     * @param cases the number of cases to send, spread round-robin over the fields
+     * @return this engine
+     */
+    public FuzzEngine withCases(long cases) {
+        if (cases < 1) {
+            throw new IllegalArgumentException("Cases must be at least 1 but was " + cases);
+        }
+        this.cases = cases;
+        return this;
+    }
+
+    /**
+     * @param seed seeds the base messages and every case, so a run can be repeated
+     * @return this engine
+     */
+    public FuzzEngine withSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Limits the run to some fields instead of every field with sample data
+     * @param fields config keys, names or aliases
+     * @return this engine
+     */
+    public FuzzEngine withFields(List<String> fields) {
+        this.fields = List.copyOf(fields);
+        return this;
+    }
+
+    /**
+     * @param maxInFlight the most tasks sending at once
+     * @param batchSize the number of cases each task generates and sends
+     * @return this engine
+     */
+    public FuzzEngine withConcurrency(int maxInFlight, int batchSize) {
+        if (maxInFlight < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("maxInFlight and batchSize must be at least 1 but were "
+                    + maxInFlight + " and " + batchSize);
+        }
+        this.maxInFlight = maxInFlight;
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * @param batching true to send each task's cases as one batch request
+     * @param framing how batch requests are framed
+     * @return this engine
+     */
+    public FuzzEngine withBatching(boolean batching, BatchCodec.Framing framing) {
+        this.batching = batching;
+        this.framing = framing;
+        return this;
+    }
+
+    /**
+     * @param shrinkSteps the most sends spent shrinking each finding
+     * @param maxFindings the most findings kept and shrunk; later ones are only counted
+     * @return this engine
+     */
+    public FuzzEngine withShrinking(int shrinkSteps, int maxFindings) {
+        this.shrinkSteps = Math.max(0, shrinkSteps);
+        this.maxFindings = Math.max(0, maxFindings);
+        return this;
+    }
+
+    /**
+     * Applies -Diso.fuzz.cases, -Diso.fuzz.seed, -Diso.fuzz.fields (comma separated), -Diso.fuzz.maxInFlight,
+     * -Diso.fuzz.batchSize, -Diso.fuzz.shrinkSteps, -Diso.fuzz.maxFindings, -Diso.parser.batch and
+     * -Diso.parser.batchFraming where set
+     * @return this engine
+     */
+    public FuzzEngine withSystemProperties() {
+        withCases(Long.getLong(CASES_PROPERTY, cases));
+        Long configuredSeed = Long.getLong(SEED_PROPERTY);
+        if (configuredSeed != null) {
+            withSeed(configuredSeed);
+        }
+        String fieldList = System.getProperty(FIELDS_PROPERTY);
+        if (fieldList != null && !fieldList.isBlank()) {
+            List<String> configured = new ArrayList<>();
+            for (String field : fieldList.split(",")) {
+                if (!field.isBlank()) {
+                    configured.add(field.trim());
+                }
+            }
+            withFields(configured);
+        }
+        withConcurrency(Integer.getInteger(MAX_IN_FLIGHT_PROPERTY, maxInFlight), Integer.getInteger(BATCH_SIZE_PROPERTY, batchSize));
+        withBatching(Boolean.getBoolean(CreateIsoMessage.BATCH_PROPERTY), BatchCodec.Framing.valueOf(
+                System.getProperty(CreateIsoMessage.BATCH_FRAMING_PROPERTY, framing.name())));
+        return withShrinking(Integer.getInteger(SHRINK_STEPS_PROPERTY, shrinkSteps), Integer.getInteger(MAX_FINDINGS_PROPERTY, maxFindings));
+    }
+
+    /**
+     * Checks each field's base message, sends every case, then shrinks the kept findings
+     * @return the report
+     */
+    public FuzzReport run() throws IOException {
+        List<Target> targets = buildTargets();
+        if (targets.isEmpty()) {
+            throw new IOException("No field to fuzz: none has sample data and a base message the parser accepts");
+        }
+
+        FuzzReport report = new FuzzReport(seed, maxFindings);
+        Semaphore permits = new Semaphore(maxInFlight);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long from = 0; from < cases && failure.get() == null; from += batchSize) {
+                long to = Math.min(cases, from + batchSize);
+                try {
+                    permits.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while fuzzing", e);
+                }
+                long first = from;
+                executor.submit(() -> {
+                    try {
+                        runCases(targets, first, to, report);
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        }
+        if (failure.get() != null) {
+            throw new IOException("Fuzzing failed: " + failure.get().getMessage(), failure.get());
+        }
+        report.elapsedNanos = System.nanoTime() - start;
+
+        for (Finding finding : report.getFindings()) {
+            shrink(finding);
+        }
+        return report;
+    }
+
+    /**
+     * Builds one base message per field, with the field's sample data and seeded defaults, and keeps the
+     * fields whose base message the parser accepts
+     */
+    private List<Target> buildTargets() throws IOException {
+        List<FieldSpec> specs = new ArrayList<>();
+        if (fields.isEmpty()) {
+            for (FieldSpec spec : schema.all()) {
+                if ((spec.isMti() || spec.isDataElement()) && spec.sampleData != null) {
+                    specs.add(spec);
+                }
+            }
+        } else {
+            for (String field : fields) {
+                FieldSpec spec = schema.byKey(field) != null ? schema.byKey(field) : schema.resolve(field);
+                if (spec == null || !(spec.isMti() || spec.isDataElement()) || spec.sampleData == null) {
+                    throw new IllegalArgumentException("Cannot fuzz field " + field + ": not configured, a bitmap or without sample data");
+                }
+                specs.add(spec);
+            }
+        }
+
+        SplittableRandom random = new SplittableRandom(seed);
+        IsoMessageBuilder builder = new IsoMessageBuilder(schema);
+        List<Target> targets = new ArrayList<>();
+        for (FieldSpec spec : specs) {
+            builder.reset();
+            builder.applyBddUpdate(spec, spec.sampleData, spec.type.configName);
+            builder.generateDefaultFields(random.nextLong());
+            MessageTemplate template = MessageTemplate.of(builder);
+            ParserResponse response = transport.send(template.baseMessage());
+            if (response.isError()) {
+                EventLog.console().forField(spec.key).summary("fuzz.skipped", "Warning: Skipping field " + spec.key
+                        + ", the parser rejected its base message: " + response.getErrorMessage());
+                continue;
+            }
+            targets.add(new Target(spec, template, FieldMutator.applicableMutations(spec)));
+        }
+        return targets;
+    }
+
+    /**
+     * Regenerates case i of a run
+     */
+    static FuzzCase caseAt(List<Target> targets, long seed, long index) {
+        Target target = targets.get((int) (index % targets.size()));
+        SplittableRandom random = new SplittableRandom(seed + index * 0x9E3779B97F4A7C15L);
+        Mutation mutation = target.mutations.get(random.nextInt(target.mutations.size()));
+        return FieldMutator.generate(target.spec, mutation, random);
+    }
+
+    private void runCases(List<Target> targets, long from, long to, FuzzReport report) {
+        IsoMessageEncoder encoder = new IsoMessageEncoder();
+        List<FuzzCase> generated = new ArrayList<>((int) (to - from));
+        List<String> messages = new ArrayList<>((int) (to - from));
+        for (long i = from; i < to; i++) {
+            FuzzCase fuzzCase = caseAt(targets, seed, i);
+            generated.add(fuzzCase);
+            messages.add(fuzzCase.render(targets.get((int) (i % targets.size())).template, encoder));
+        }
+
+        List<ParserResponse> responses;
+        if (batching) {
+            try {
+                responses = transport.sendBatch(messages, framing);
+            } catch (IOException | RuntimeException e) {
+                // Counted as errors below
+                responses = Collections.nCopies(messages.size(), null);
+            }
+        } else {
+            responses = new ArrayList<>(messages.size());
+            for (String message : messages) {
+                responses.add(sendQuietly(message));
+            }
+        }
+
+        for (int i = 0; i < generated.size(); i++) {
+            Target target = targets.get((int) ((from + i) % targets.size()));
+            report.record(target, from + i, generated.get(i), messages.get(i), responses.get(i));
+        }
+    }
+
+    private void shrink(Finding finding) {
+        FuzzCase current = finding.original;
+        String currentMessage = finding.message;
+        IsoMessageEncoder encoder = new IsoMessageEncoder();
+        int sends = 0;
+        boolean progress = true;
+        while (progress && sends < shrinkSteps) {
+            progress = false;
+            for (FuzzCase candidate : current.shrinkCandidates()) {
+                if (sends >= shrinkSteps) {
+                    break;
+                }
+                sends++;
+                String message = candidate.render(finding.target.template, encoder);
+                if (isAccepted(sendQuietly(message))) {
+                    current = candidate;
+                    currentMessage = message;
+                    progress = true;
+                    break;
+                }
+            }
+        }
+        finding.shrunk = current;
+        finding.shrunkMessage = currentMessage;
+        finding.shrinkSends = sends;
+    }
+
+    private ParserResponse sendQuietly(String message) {
+        try {
+            return transport.send(message);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return true if the parser answered and did not reject the message
+     */
+    static boolean isAccepted(ParserResponse response) {
+        return response != null && response.statusCode < 500 && !response.isError();
+    }
+
+    /**
+     * A field under test: its valid base message and the mutations that apply to it
+     */
+    static final class Target {
+        final FieldSpec spec;
+        final MessageTemplate template;
+        final List<Mutation> mutations;
+
+        Target(FieldSpec spec, MessageTemplate template, List<Mutation> mutations) {
+            this.spec = spec;
+            this.template = template;
+            this.mutations = mutations;
+        }
+    }
+
+    /**
+     * An invalid message the parser accepted, and the smallest case found that it still accepts
+     */
+    public static final class Finding {
+        public final long index;
+        public final FuzzCase original;
+        public final String message;
+        final Target target;
+        public FuzzCase shrunk;
+        public String shrunkMessage;
+        public int shrinkSends;
+
+        Finding(Target target, long index, FuzzCase original, String message) {
+            this.target = target;
+            this.index = index;
+            this.original = original;
+            this.message = message;
+        }
+    }
+
+    /**
+     * Counts per mutation and per field, and the kept findings. Errors are transport failures and 5xx
+     * responses; accepted cases are findings.
+     */
+    public static final class FuzzReport {
+        public final long seed;
+        private final int maxFindings;
+        private final AtomicLongArray sent = new AtomicLongArray(Mutation.values().length);
+        private final AtomicLongArray accepted = new AtomicLongArray(Mutation.values().length);
+        private final AtomicLongArray errors = new AtomicLongArray(Mutation.values().length);
+        private final Map<String, AtomicLong> acceptedByField = new ConcurrentHashMap<>();
+        private final List<Finding> findings = new ArrayList<>();
+        long elapsedNanos;
+
+        FuzzReport(long seed, int maxFindings) {
+            this.seed = seed;
+            this.maxFindings = maxFindings;
+        }
+
+        void record(Target target, long index, FuzzCase fuzzCase, String message, ParserResponse response) {
+            int mutation = fuzzCase.mutation.ordinal();
+            sent.incrementAndGet(mutation);
+            if (response == null || response.statusCode >= 500) {
+                errors.incrementAndGet(mutation);
+            } else if (!response.isError()) {
+                accepted.incrementAndGet(mutation);
+                acceptedByField.computeIfAbsent(target.spec.key, k -> new AtomicLong()).incrementAndGet();
+                synchronized (findings) {
+                    if (findings.size() < maxFindings) {
+                        findings.add(new Finding(target, index, fuzzCase, message));
+                    }
+                }
+            }
+        }
+
+        public long getSent(Mutation mutation) {
+            return sent.get(mutation.ordinal());
+        }
+
+        public long getAccepted(Mutation mutation) {
+            return accepted.get(mutation.ordinal());
+        }
+
+        public long getErrors(Mutation mutation) {
+            return errors.get(mutation.ordinal());
+        }
+
+        public long getTotalSent() {
+            return sum(sent);
+        }
+
+        public long getTotalAccepted() {
+            return sum(accepted);
+        }
+
+        public long getTotalErrors() {
+            return sum(errors);
+        }
+
+        /**
+         * @return accepted invalid cases per field key, sorted by key
+         */
+        public Map<String, Long> getAcceptedByField() {
+            Map<String, Long> counts = new TreeMap<>();
+            acceptedByField.forEach((field, count) -> counts.put(field, count.get()));
+            return counts;
+        }
+
+        /**
+         * @return the kept findings, in the order they were found
+         */
+        public List<Finding> getFindings() {
+            synchronized (findings) {
+                return new ArrayList<>(findings);
+            }
+        }
+
+        public Duration getElapsed() {
+            return Duration.ofNanos(elapsedNanos);
+        }
+
+        /**
+         * @return cases sent per second, not counting shrinking
+         */
+        public double getCasesPerSecond() {
+            return elapsedNanos == 0 ? 0 : getTotalSent() * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        private static long sum(AtomicLongArray counts) {
+            long total = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                total += counts.get(i);
+            }
+            return total;
+        }
+
+        /**
+         * Prints the counts per mutation, the fields with findings and every kept finding before and after
+         * shrinking
+         * @param out where the report is written
+         */
+        public void print(PrintStream out) {
+            out.println("\n==============================================");
+            out.println("FUZZ REPORT");
+            out.println("==============================================");
+            out.println(String.format("Seed: %d, cases: %d in %.1fs (%.0f/s)", seed, getTotalSent(),
+                    elapsedNanos / 1_000_000_000.0, getCasesPerSecond()));
+            out.println(String.format("Accepted invalid cases: %d, errors: %d", getTotalAccepted(), getTotalErrors()));
+            out.println(String.format("  %-20s %10s %10s %10s  %s", "", "sent", "accepted", "errors", "rule broken"));
+            for (Mutation mutation : Mutation.values()) {
+                out.println(String.format("  %-20s %10d %10d %10d  %s", mutation, getSent(mutation),
+                        getAccepted(mutation), getErrors(mutation), mutation.description));
+            }
+            Map<String, Long> byField = getAcceptedByField();
+            if (!byField.isEmpty()) {
+                out.println("Accepted invalid cases by field: " + byField);
+            }
+            for (Finding finding : getFindings()) {
+                out.println("----------------------------------------------");
+                out.println("Case " + finding.index + ": " + finding.original);
+                out.println("  Message: " + FieldMutator.printable(finding.message));
+                if (finding.shrunk != null) {
+                    out.println("  Shrunk in " + finding.shrinkSends + " sends to: " + finding.shrunk);
+                    out.println("  Message: " + FieldMutator.printable(finding.shrunkMessage));
+                }
+            }
+            out.println("==============================================");
+        }
+    }
+
+    /**
+     * Runs the fuzzer from the command line against the configured parser (-Diso.parser.url, or
+     * -Diso.parser.embedded=true for the stub) with the -Diso.fuzz.* settings, and prints the report
+     * @param args [config file], relative to src/test/resources, defaulting to iso_config_extended_flattened.json
+     */
+    public static void main(String[] args) throws IOException {
+        CreateIsoMessage.loadConfig(args.length > 0 ? args[0] : "iso_config_extended_flattened.json");
+        try {
+            FuzzReport report = new FuzzEngine(CreateIsoMessage.getSchema(), CreateIsoMessage.getTransport())
+                    .withSystemProperties()
+                    .run();
+            report.print(System.out);
+        } finally {
+            CreateIsoMessage.stopEmbeddedParser();
+        }
+    }
+}
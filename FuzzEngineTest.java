@@ -0,0 +1,106 @@
+package utilities;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import utilities.FieldMutator.Mutation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class FuzzEngineTest {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private FieldSchema schema;
+    private ParserStubServer stub;
+
+    /**
+     * Decodes like the stub but ignores allowedChars violations, so illegal characters are accepted
+     */
+    private static class LenientTransport implements ParserTransport {
+        private final IsoMessageDecoder decoder;
+
+        LenientTransport(FieldSchema schema) {
+            this.decoder = new IsoMessageDecoder(schema);
+        }
+
+        @Override
+        public ParserResponse send(String isoMessage) {
+            for (IsoMessageDecoder.FieldError error : decoder.decode(isoMessage).errors) {
+                if (!error.message.contains(" is outside ")) {
+                    return new ParserResponse(400, "{\"message\":\"" + error.dataElementId + "\"}");
+                }
+            }
+            return new ParserResponse(200, "[]");
+        }
+
+        @Override
+        public CompletableFuture<ParserResponse> sendAsync(String isoMessage) {
+            return CompletableFuture.completedFuture(send(isoMessage));
+        }
+    }
+
+    @BeforeAll
+    void setup() throws IOException {
+        String configJson = Files.readString(Path.of("iso_config_extended_flattened.json"));
+        schema = FieldSchema.compile(objectMapper.readTree(configJson));
+        stub = ParserStubServer.forSchema(schema).start();
+    }
+
+    @AfterAll
+    void tearDown() {
+        stub.close();
+    }
+
+    @Test
+    void testStubRejectsCharacterAndIndicatorViolations() throws IOException {
+        FuzzEngine.FuzzReport report = new FuzzEngine(schema, new HttpClientTransport(stub.getUrl()))
+                .withFields(List.of("2", "4", "48"))
+                .withCases(600)
+                .withSeed(11)
+                .withConcurrency(4, 25)
+                .withBatching(true, BatchCodec.Framing.NEWLINE_DELIMITED)
+                .run();
+
+        assert report.getTotalSent() == 600 : "Every case should be sent, got " + report.getTotalSent();
+        assert report.getTotalErrors() == 0 : "Stub should not fail any message";
+        for (Mutation mutation : List.of(Mutation.ILLEGAL_CHAR, Mutation.ILLEGAL_CHARS, Mutation.NON_ASCII,
+                Mutation.PREFIX_NON_NUMERIC, Mutation.EMPTY)) {
+            assert report.getSent(mutation) > 0 : mutation + " should be generated";
+            assert report.getAccepted(mutation) == 0 : "Stub should reject every " + mutation + " case";
+        }
+    }
+
+    @Test
+    void testShrinksAcceptedCases() throws IOException {
+        FuzzEngine.FuzzReport report = new FuzzEngine(schema, new LenientTransport(schema))
+                .withFields(List.of("4"))
+                .withCases(200)
+                .withSeed(3)
+                .withShrinking(500, 2)
+                .run();
+
+        assert report.getAccepted(Mutation.ILLEGAL_CHAR) > 0 : "Lenient parser should accept illegal characters";
+        assert report.getFindings().size() == 2 : "Only maxFindings findings should be kept";
+        FieldSpec amount = schema.byKey("4");
+        for (FuzzEngine.Finding finding : report.getFindings()) {
+            String shrunk = finding.shrunk.value;
+            assert shrunk.length() == amount.length : "Shrinking should keep the fixed length, got " + finding.shrunk;
+            assert shrunk.chars().filter(c -> !amount.isAllowed((char) c)).count() >= 1 : "Shrunk value should stay invalid";
+            assert shrunk.chars().filter(c -> c != '0').count() <= shrunk.chars().filter(c -> !amount.isAllowed((char) c)).count() :
+                "Allowed characters should be simplified, got " + finding.shrunk;
+        }
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        report.print(new PrintStream(buffer, true, StandardCharsets.UTF_8));
+        assert buffer.toString(StandardCharsets.UTF_8).contains("Shrunk in") : "Report should list the shrunk findings";
+    }
+}
@@ -0,0 +1,126 @@
+package utilities;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link ParserTransport} backed by a single shared {@link HttpClient}, so connections are kept alive and
+ * reused across messages. HTTP/2 is negotiated where the parser supports it, otherwise HTTP/1.1 is used.
+ */
+public class HttpClientTransport implements ParserTransport {
+    public static final String CONNECT_TIMEOUT_PROPERTY = "iso.parser.connectTimeoutMs";
+    public static final String REQUEST_TIMEOUT_PROPERTY = "iso.parser.requestTimeoutMs";
+    public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final URI uri;
+    private final URI batchUri;
+    private final Duration requestTimeout;
+    private final HttpClient client;
+
+    /**
+     * Creates a transport with timeouts taken from system properties, falling back to the defaults
+     * @param parserUrl the parser endpoint
+     */
+    public HttpClientTransport(String parserUrl) {
+        this(parserUrl,
+                Duration.ofMillis(Long.getLong(CONNECT_TIMEOUT_PROPERTY, DEFAULT_CONNECT_TIMEOUT.toMillis())),
+                Duration.ofMillis(Long.getLong(REQUEST_TIMEOUT_PROPERTY, DEFAULT_REQUEST_TIMEOUT.toMillis())));
+    }
+
+    /**
+     * @param parserUrl the parser endpoint
+     * @param connectTimeout maximum time to establish a connection
+     * @param requestTimeout maximum time to wait for a response
+     * @throws IllegalArgumentException if the URL is not a valid URI
+     */
+    public HttpClientTransport(String parserUrl, Duration connectTimeout, Duration requestTimeout) {
+        this.uri = URI.create(parserUrl);
+        this.batchUri = URI.create(parserUrl.endsWith("/") ? parserUrl + "batch" : parserUrl + "/batch");
+        this.requestTimeout = requestTimeout;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .build();
+    }
+
+    public URI getUri() {
+        return uri;
+    }
+
+    /**
+     * @return the batch endpoint, which is the parser URL with "/batch" appended
+     */
+    public URI getBatchUri() {
+        return batchUri;
+    }
+
+    @Override
+    public ParserResponse send(String isoMessage) throws IOException {
+        HttpResponse<String> response = execute(newRequest(isoMessage));
+        return new ParserResponse(response.statusCode(), response.body());
+    }
+
+    @Override
+    public ParserResponse send(byte[] isoMessage, int offset, int length) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(requestTimeout)
+                .header("Content-Type", "text/plain")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(isoMessage, offset, length))
+                .build();
+        HttpResponse<String> response = execute(request);
+        return new ParserResponse(response.statusCode(), response.body());
+    }
+
+    @Override
+    public List<ParserResponse> sendBatch(List<String> isoMessages, BatchCodec.Framing framing) throws IOException {
+        if (isoMessages.isEmpty()) {
+            return List.of();
+        }
+        HttpRequest request = HttpRequest.newBuilder(batchUri)
+                .timeout(requestTimeout)
+                .header("Content-Type", framing.contentType)
+                .POST(HttpRequest.BodyPublishers.ofString(BatchCodec.encodeRequest(isoMessages, framing), StandardCharsets.UTF_8))
+                .build();
+        HttpResponse<String> response = execute(request);
+        if (response.statusCode() != 200) {
+            throw new IOException("Batch request failed with status " + response.statusCode() + ": " + response.body());
+        }
+        BatchCodec.Framing responseFraming = BatchCodec.Framing.fromContentType(
+                response.headers().firstValue("Content-Type").orElse(framing.contentType));
+        return BatchCodec.decodeResponse(response.body(), responseFraming, isoMessages.size());
+    }
+
+    private HttpResponse<String> execute(HttpRequest request) throws IOException {
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            InterruptedIOException interrupted = new InterruptedIOException("Interrupted while waiting for parser response");
+            interrupted.initCause(e);
+            throw interrupted;
+        }
+    }
+
+    @Override
+    public CompletableFuture<ParserResponse> sendAsync(String isoMessage) {
+        return client.sendAsync(newRequest(isoMessage), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
+                .thenApply(response -> new ParserResponse(response.statusCode(), response.body()));
+    }
+
+    private HttpRequest newRequest(String isoMessage) {
+        return HttpRequest.newBuilder(uri)
+                .timeout(requestTimeout)
+                .header("Content-Type", "text/plain")
+                .POST(HttpRequest.BodyPublishers.ofString(isoMessage, StandardCharsets.UTF_8))
+                .build();
+    }
+}
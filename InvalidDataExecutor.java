@@ -0,0 +1,187 @@
+package utilities;
+
+import utilities.CreateIsoMessage.TestResult;
+import utilities.CreateIsoMessage.TestSummary;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs the field x TEST_CATEGORIES invalid-data matrix concurrently on virtual threads.
+ * Every case gets its own {@link IsoMessageBuilder} and buffered {@link EventLog}; logs are published in
+ * field and category order once each field completes, so console output matches the serial run.
+ * A semaphore caps how many cases talk to the parser at the same time.
+ */
+public class InvalidDataExecutor {
+    public static final String PARALLEL_PROPERTY = "iso.parallel";
+    public static final String MAX_CONCURRENCY_PROPERTY = "iso.parallel.maxConcurrency";
+    public static final int DEFAULT_MAX_CONCURRENCY = 16;
+
+    private final int maxConcurrency;
+    private final Semaphore permits;
+
+    public InvalidDataExecutor() {
+        this(Integer.getInteger(MAX_CONCURRENCY_PROPERTY, DEFAULT_MAX_CONCURRENCY));
+    }
+
+    public InvalidDataExecutor(int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be at least 1 but was " + maxConcurrency);
+        }
+        this.maxConcurrency = maxConcurrency;
+        this.permits = new Semaphore(maxConcurrency);
+    }
+
+    /**
+     * @return true if parallel execution was requested with -Diso.parallel=true
+     */
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(PARALLEL_PROPERTY);
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Validates a single field, running its invalid categories concurrently
+     * @param spec the field under test
+     * @return the field summary
+     */
+    public TestSummary validateField(FieldSpec spec) throws IOException {
+        return validateFields(List.of(spec)).get(0);
+    }
+
+    /**
+     * Validates several fields, fanning out every field and category at once
+     * @param specs the fields under test
+     * @return one summary per field, in the order given
+     */
+    public List<TestSummary> validateFields(List<FieldSpec> specs) throws IOException {
+        List<TestSummary> summaries = new ArrayList<>();
+        for (FieldRun run : run(specs)) {
+            summaries.add(TestSummary.fromResults(run.spec.key, run.baseValid, run.results));
+        }
+        return summaries;
+    }
+
+    /**
+     * Validates every configured field that has at least one invalid category
+     * @return the case results keyed by field id, in config order
+     */
+    public Map<String, List<TestResult>> validateAllFields() throws IOException {
+        List<FieldSpec> specs = new ArrayList<>();
+        for (FieldSpec spec : CreateIsoMessage.getSchema().all()) {
+            if (spec.isBitmap() || spec.sampleData == null) continue;
+            for (String testCategory : CreateIsoMessage.TEST_CATEGORIES) {
+                if (spec.hasInvalidValue(testCategory)) {
+                    specs.add(spec);
+                    break;
+                }
+            }
+        }
+
+        Map<String, List<TestResult>> testResults = new LinkedHashMap<>();
+        for (FieldRun run : run(specs)) {
+            testResults.put(run.spec.key, run.results);
+        }
+        return testResults;
+    }
+
+    private List<FieldRun> run(List<FieldSpec> specs) throws IOException {
+        List<FieldRun> runs = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<FieldRun>> futures = new ArrayList<>();
+            for (FieldSpec spec : specs) {
+                futures.add(executor.submit(() -> runField(executor, spec)));
+            }
+
+            // Collect in submission order so output and results are deterministic
+            for (Future<FieldRun> future : futures) {
+                FieldRun run = await(future);
+                run.log.publish();
+                runs.add(run);
+            }
+        }
+        return runs;
+    }
+
+    private FieldRun runField(ExecutorService executor, FieldSpec spec) throws Exception {
+        FieldRun run = new FieldRun(spec);
+        IsoMessageBuilder builder = CreateIsoMessage.newBuilder();
+        permits.acquire();
+        try {
+            run.baseValid = CreateIsoMessage.checkBaseMessage(builder, spec, run.log);
+        } finally {
+            permits.release();
+        }
+        if (!run.baseValid) {
+            return run;
+        }
+
+        // Cases share the base message read-only and only splice in their own invalid value
+        MessageTemplate template = MessageTemplate.of(builder);
+        List<Future<CaseRun>> cases = new ArrayList<>();
+        for (String testCategory : CreateIsoMessage.TEST_CATEGORIES) {
+            if (!spec.hasInvalidValue(testCategory)) continue;
+            cases.add(executor.submit(() -> runCase(template, spec, testCategory)));
+        }
+        for (Future<CaseRun> future : cases) {
+            CaseRun caseRun = await(future);
+            run.results.add(caseRun.result);
+            run.log.append(caseRun.log);
+        }
+        return run;
+    }
+
+    private CaseRun runCase(MessageTemplate template, FieldSpec spec, String testCategory) throws InterruptedException {
+        CaseRun caseRun = new CaseRun();
+        permits.acquire();
+        try {
+            caseRun.result = CreateIsoMessage.runInvalidCase(template, spec, testCategory, caseRun.log);
+        } finally {
+            permits.release();
+        }
+        return caseRun;
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for invalid-data cases", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Invalid-data case failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    private static class FieldRun {
+        final FieldSpec spec;
+        final List<TestResult> results = new ArrayList<>();
+        final EventLog log;
+        boolean baseValid;
+
+        FieldRun(FieldSpec spec) {
+            this.spec = spec;
+            this.log = EventLog.buffered().forField(spec.key);
+        }
+    }
+
+    private static class CaseRun {
+        final EventLog log = EventLog.buffered();
+        TestResult result;
+    }
+}
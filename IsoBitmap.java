@@ -0,0 +1,108 @@
+package utilities;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Bit operations on ISO8583 bitmaps held as a primitive long.
+ * Position 1 is the most significant bit, matching the order the bitmap is written on the wire,
+ * so position n of the primary bitmap is data element n and position n of the secondary bitmap is
+ * data element n + 64.
+ */
+public final class IsoBitmap {
+    /** Position 1 of the primary bitmap, which flags that a secondary bitmap follows */
+    public static final long SECONDARY_BITMAP_FLAG = 1L << 63;
+
+    // Two upper-case hex characters for every byte value
+    private static final byte[] HEX_PAIRS = new byte[256 * 2];
+
+    static {
+        byte[] digits = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < 256; i++) {
+            HEX_PAIRS[i * 2] = digits[i >>> 4];
+            HEX_PAIRS[i * 2 + 1] = digits[i & 0xF];
+        }
+    }
+
+    private IsoBitmap() {
+    }
+
+    /**
+     * @param bitmap the bitmap
+     * @param position 1-64
+     * @return the bitmap with the position set
+     */
+    public static long set(long bitmap, int position) {
+        return bitmap | mask(position);
+    }
+
+    /**
+     * @param bitmap the bitmap
+     * @param position 1-64
+     * @return true if the position is set
+     */
+    public static boolean isSet(long bitmap, int position) {
+        return (bitmap & mask(position)) != 0;
+    }
+
+    /**
+     * Finds the next set position, for iterating with
+     * {@code for (int p = nextSet(b, 1); p > 0; p = nextSet(b, p + 1))}
+     * @param bitmap the bitmap
+     * @param fromPosition the first position to look at (1-based)
+     * @return the first set position at or after fromPosition, or -1 if there is none
+     */
+    public static int nextSet(long bitmap, int fromPosition) {
+        if (fromPosition > 64) {
+            return -1;
+        }
+        long remaining = fromPosition <= 1 ? bitmap : bitmap & (-1L >>> (fromPosition - 1));
+        return remaining == 0 ? -1 : Long.numberOfLeadingZeros(remaining) + 1;
+    }
+
+    /**
+     * @return the number of positions set
+     */
+    public static int count(long bitmap) {
+        return Long.bitCount(bitmap);
+    }
+
+    /**
+     * @return the bitmap as 16 upper-case hex characters
+     */
+    public static String toHex(long bitmap) {
+        byte[] hex = new byte[16];
+        writeHex(bitmap, hex, 0);
+        return new String(hex, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Writes the bitmap as 16 upper-case ASCII hex characters
+     * @return the number of bytes written
+     */
+    public static int writeHex(long bitmap, byte[] target, int offset) {
+        for (int shift = 56, i = offset; shift >= 0; shift -= 8, i += 2) {
+            int pair = (int) (bitmap >>> shift) & 0xFF;
+            target[i] = HEX_PAIRS[pair * 2];
+            target[i + 1] = HEX_PAIRS[pair * 2 + 1];
+        }
+        return 16;
+    }
+
+    /**
+     * Writes the bitmap as 8 raw big-endian bytes, the binary form of an ISO8583 bitmap
+     * @return the number of bytes written
+     */
+    public static int writeBinary(long bitmap, byte[] target, int offset) {
+        for (int shift = 56, i = offset; shift >= 0; shift -= 8, i++) {
+            target[i] = (byte) (bitmap >>> shift);
+        }
+        return 8;
+    }
+
+    private static long mask(int position) {
+        if (position < 1 || position > 64) {
+            throw new IllegalArgumentException("Bitmap position must be between 1 and 64 but was " + position);
+        }
+        return 1L << (64 - position);
+    }
+}
@@ -0,0 +1,38 @@
+package utilities;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class IsoBitmapTest {
+
+    @Test
+    void testSetAndIterate() {
+        long bitmap = 0;
+        for (int position : new int[]{1, 2, 33, 64}) {
+            bitmap = IsoBitmap.set(bitmap, position);
+        }
+        assert bitmap == (IsoBitmap.SECONDARY_BITMAP_FLAG | 1L << 62 | 1L << 31 | 1L) : "Position 1 should be the most significant bit";
+        assert IsoBitmap.isSet(bitmap, 33) && !IsoBitmap.isSet(bitmap, 34) : "isSet should test a single position";
+        assert IsoBitmap.count(bitmap) == 4 : "count should return the number of positions set";
+
+        List<Integer> positions = new ArrayList<>();
+        for (int p = IsoBitmap.nextSet(bitmap, 1); p > 0; p = IsoBitmap.nextSet(bitmap, p + 1)) {
+            positions.add(p);
+        }
+        assert positions.equals(List.of(1, 2, 33, 64)) : "Iteration should visit set positions in order but got " + positions;
+    }
+
+    @Test
+    void testHexAndBinaryEncoding() {
+        // Bitmap from messageResponse.json
+        long bitmap = Long.parseUnsignedLong("2000004257FE817F", 16);
+        assert IsoBitmap.toHex(bitmap).equals("2000004257FE817F") : "Hex encoding should be upper-case and zero-padded";
+        assert IsoBitmap.toHex(1L).equals("0000000000000001") : "Hex encoding should keep leading zeros";
+
+        byte[] binary = new byte[8];
+        IsoBitmap.writeBinary(bitmap, binary, 0);
+        assert binary[0] == 0x20 && binary[7] == 0x7F && binary[5] == (byte) 0xFE : "Binary encoding should be big-endian";
+    }
+}
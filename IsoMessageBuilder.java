@@ -0,0 +1,334 @@
+package utilities;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.*;
+
+import static utilities.CustomTestData.generateCustomValue;
+
+/**
+ * Builds a single ISO8583 message from a compiled {@link FieldSchema}.
+ * Each instance owns its field values and bitmaps, so builders can be used concurrently as long as
+ * each one stays confined to a single thread. The schema is shared read-only between builders.
+ */
+public class IsoMessageBuilder {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final FieldSchema schema;
+    private final TreeMap<Integer, String> isoFields = new TreeMap<>();
+    private long primaryBitmap;
+    private long secondaryBitmap;
+    private final Set<String> manuallyUpdatedFields = new HashSet<>(); // Tracks modified fields
+    private IsoMessageEncoder encoder;
+    private long defaultsSeed;
+
+    public IsoMessageBuilder(FieldSchema schema) {
+        this.schema = schema;
+    }
+
+    public FieldSchema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Applies a value from a feature file to a field. Values longer than the configured maximum are truncated
+     * and type mismatches are reported as warnings.
+     * @param spec the field to update
+     * @param value the raw value or custom value expression
+     * @param dataType the data type given in the feature file
+     * @return this builder
+     */
+    public IsoMessageBuilder applyBddUpdate(FieldSpec spec, String value, String dataType) {
+        return setField(spec, prepareValue(spec, value, dataType));
+    }
+
+    /**
+     * Resolves a feature file value the way {@link #applyBddUpdate} stores it: custom value expressions are
+     * expanded, values longer than the configured maximum are truncated and type mismatches are reported
+     * @param spec the field the value is for
+     * @param value the raw value or custom value expression
+     * @param dataType the data type given in the feature file
+     * @return the value to store
+     */
+    static String prepareValue(FieldSpec spec, String value, String dataType) {
+        return prepareValue(spec, value, dataType, EventLog.console());
+    }
+
+    /**
+     * Same as {@link #prepareValue(FieldSpec, String, String)}, reporting warnings to the given log
+     */
+    static String prepareValue(FieldSpec spec, String value, String dataType, EventLog log) {
+        String fieldNumber = spec.key;
+        int maxLength = spec.maxLength;
+        String type = spec.type.configName;
+
+        // Apply the value directly instead of getting sample data
+        String valueToApply = generateCustomValue(value, type);
+
+        // Validate length & type (WARN, not stop execution)
+        if (valueToApply.length() > maxLength) {
+            log.info("value.truncated", "Warning: Value- "+valueToApply+"  for field " + fieldNumber + " exceeds max length " + maxLength + " (Truncated)");
+            valueToApply = valueToApply.substring(0, maxLength);
+        }
+        if (!type.equalsIgnoreCase(dataType)) {
+            log.info("value.typeMismatch", "Warning: Data type mismatch for field " + fieldNumber + ". Expected: " + type + ", Provided: " + dataType);
+        }
+        return valueToApply;
+    }
+
+    /**
+     * Sets a field value as-is and marks it as manually updated so default generation leaves it alone
+     * @param spec the field to set
+     * @param value the raw field value (without length indicator)
+     * @return this builder
+     */
+    public IsoMessageBuilder setField(FieldSpec spec, String value) {
+        manuallyUpdatedFields.add(spec.key);
+        addField(spec, value);
+        return this;
+    }
+
+    /**
+     * Fills every active field that was not manually updated with a random value, drawn from a fresh seed
+     * that {@link #getDefaultsSeed()} reports afterwards
+     * @return this builder
+     */
+    public IsoMessageBuilder generateDefaultFields() {
+        return generateDefaultFields(FieldValueGenerator.nextSeed());
+    }
+
+    /**
+     * Fills every active field that was not manually updated with a random value. The same seed always
+     * produces the same values, so this reproduces the defaults of an earlier message.
+     * @param seed the seed for this message's defaults
+     * @return this builder
+     */
+    public IsoMessageBuilder generateDefaultFields(long seed) {
+        defaultsSeed = seed;
+
+        // Ensure MTI defaults to "0100" if not manually set by the user
+        if (!isoFields.containsKey(0) && !manuallyUpdatedFields.contains("MTI")) {
+            isoFields.put(0, "0100");
+        }
+
+        // With -Diso.defaults.seed every message reuses the same default values
+        Long fixedSeed = SeededDefaults.configuredSeed();
+        SplittableRandom random = new SplittableRandom(seed);
+        for (FieldSpec spec : schema.all()) {
+            if (spec.active && !manuallyUpdatedFields.contains(spec.key)) {
+                if (!spec.isMti()) {
+                    addField(spec, fixedSeed != null
+                            ? SeededDefaults.valueFor(schema, fixedSeed, spec)
+                            : FieldValueGenerator.value(schema, spec, random));
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @return the seed the last {@link #generateDefaultFields()} call used
+     */
+    public long getDefaultsSeed() {
+        return defaultsSeed;
+    }
+
+    private void addField(FieldSpec spec, String dataSample) {
+        // Handle MTI separately as a string
+        if (spec.isMti()) {
+            isoFields.put(0, dataSample);
+            return;
+        }
+
+        // Handle bitmaps separately
+        if (spec.isBitmap()) {
+            return; // Bitmaps are automatically generated, do not parse as numeric
+        }
+
+        if (!spec.isDataElement()) {
+            EventLog.console().info("field.invalidNumber", "Warning: Invalid field number encountered: " + spec.key);
+            return;
+        }
+
+        // Store field value and update bitmap
+        int fieldNumber = spec.number;
+        isoFields.put(fieldNumber, dataSample);
+        if (fieldNumber <= 64) {
+            primaryBitmap = IsoBitmap.set(primaryBitmap, fieldNumber);
+        } else {
+            secondaryBitmap = IsoBitmap.set(secondaryBitmap, fieldNumber - 64);
+            primaryBitmap |= IsoBitmap.SECONDARY_BITMAP_FLAG; // Ensure secondary bitmap is marked active
+        }
+    }
+
+    public String buildIsoMessage() {
+        return encode().toString();
+    }
+
+    /**
+     * Builds the message as UTF-8 bytes
+     * @return a new array holding exactly the encoded message
+     */
+    public byte[] buildIsoMessageBytes() {
+        return encode().toByteArray();
+    }
+
+    /**
+     * Encodes the message into this builder's reusable encoder. The returned encoder's buffer is
+     * overwritten by the next call, so consume or copy it first.
+     * @return the encoder holding the message
+     */
+    public IsoMessageEncoder encode() {
+        if (encoder == null) {
+            encoder = new IsoMessageEncoder();
+        }
+        encoder.reset();
+
+        // Ensure MTI is included, default to "0100" if not manually set
+        String mti = isoFields.get(0);
+        encoder.writeText(mti != null ? mti : "0100");
+
+        // Check if we need secondary bitmap (any fields 65-128)
+        boolean needsSecondaryBitmap = hasActiveSecondaryFields();
+
+        // Always include primary bitmap if we have any fields or need secondary bitmap
+        if (needsSecondaryBitmap || hasActivePrimaryFields()) {
+            encoder.writeBitmapHex(primaryBitmap);
+        }
+
+        // Include secondary bitmap if needed
+        if (needsSecondaryBitmap) {
+            encoder.writeBitmapHex(secondaryBitmap);
+        }
+
+        // Append each field value in order
+        for (Map.Entry<Integer, String> entry : isoFields.entrySet()) {
+            int field = entry.getKey();
+            if (field == 0) continue; // Skip MTI
+
+            FieldSpec spec = schema.field(field);
+            if (spec == null) continue;
+
+            // LLVAR and LLLVAR handling
+            String value = entry.getValue();
+            if (spec.format.isVariable()) {
+                encoder.writeLength(value.length(), spec.format.lengthIndicatorSize);
+            }
+            encoder.writeText(value);
+        }
+        return encoder;
+    }
+
+    public String buildJsonMessage() throws IOException {
+        Map<String, Object> outputJson = new HashMap<>();
+
+        // Ensure MTI is correctly stored and printed
+        if (!isoFields.containsKey(0) && !manuallyUpdatedFields.contains("MTI")) {
+
+            outputJson.put("MTI", isoFields.getOrDefault(0, "0100"));
+        }
+        else{
+            EventLog.console().wire("json.mti", "", () -> isoFields.get(0));
+            outputJson.put("MTI", isoFields.get(0));
+        }
+
+        // Print Primary Bitmap only if active
+        if (hasActivePrimaryFields()) {
+            outputJson.put("PrimaryBitmap", IsoBitmap.toHex(primaryBitmap));
+        }
+
+        // Print Secondary Bitmap only if required
+        if (hasActiveSecondaryFields()) {
+            outputJson.put("SecondaryBitmap", IsoBitmap.toHex(secondaryBitmap));
+        }
+        // Loop through all fields except MTI (Field_0)
+        for (int field : isoFields.keySet()) {
+            if (field == 0) continue; // Skip MTI from being printed as Field_0
+
+            FieldSpec spec = schema.field(field);
+            if (spec == null) continue;
+
+            String value = isoFields.get(field);
+            String formattedValue = value;
+
+            // Append LLVAR/LLLVAR length values before the actual data
+            if (spec.format == FieldSpec.Format.LLVAR) {
+                formattedValue = String.format("%02d", value.length()) + value;
+            } else if (spec.format == FieldSpec.Format.LLLVAR) {
+                formattedValue = String.format("%03d", value.length()) + value;
+            }
+
+
+            // Store correctly formatted field value in JSON output
+            outputJson.put("Field_" + field, formattedValue);
+        }
+
+        return objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(outputJson);
+    }
+
+    private boolean hasActivePrimaryFields() {
+        // Any of fields 2-64 present; position 1 only flags the secondary bitmap
+        return IsoBitmap.count(primaryBitmap & ~IsoBitmap.SECONDARY_BITMAP_FLAG) > 0;
+    }
+
+    private boolean hasActiveSecondaryFields() {
+        return IsoBitmap.count(secondaryBitmap) > 0; // Any of fields 65-128 present
+    }
+
+    /**
+     * @return the primary bitmap; position 1 is the most significant bit
+     */
+    public long getPrimaryBitmap() {
+        return primaryBitmap;
+    }
+
+    /**
+     * @return the secondary bitmap; position 1 (field 65) is the most significant bit
+     */
+    public long getSecondaryBitmap() {
+        return secondaryBitmap;
+    }
+
+    /**
+     * Clears all field values and bitmaps so the builder can be reused for a new message
+     * @return this builder
+     */
+    public IsoMessageBuilder reset() {
+        isoFields.clear();
+        primaryBitmap = 0;
+        secondaryBitmap = 0;
+        manuallyUpdatedFields.clear();
+        return this;
+    }
+
+    /**
+     * Creates an independent builder with the same schema and a copy of the current state
+     * @return the copy
+     */
+    public IsoMessageBuilder copy() {
+        IsoMessageBuilder copy = new IsoMessageBuilder(schema);
+        copy.isoFields.putAll(isoFields);
+        copy.primaryBitmap = primaryBitmap;
+        copy.secondaryBitmap = secondaryBitmap;
+        copy.manuallyUpdatedFields.addAll(manuallyUpdatedFields);
+        copy.defaultsSeed = defaultsSeed;
+        return copy;
+    }
+
+    /**
+     * @return an immutable view of the current field values keyed by field number (0 = MTI)
+     */
+    public SortedMap<Integer, String> snapshot() {
+        return Collections.unmodifiableSortedMap(new TreeMap<>(isoFields));
+    }
+
+    /**
+     * Gets the current value of a field
+     * @param fieldNumber the field number to get (0 = MTI)
+     * @return the current value or null if not set
+     */
+    public String getFieldValue(int fieldNumber) {
+        return isoFields.get(fieldNumber);
+    }
+}
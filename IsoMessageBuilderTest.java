@@ -0,0 +1,126 @@
+package utilities;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SortedMap;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class IsoMessageBuilderTest {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private FieldSchema schema;
+
+    @BeforeAll
+    void setup() throws IOException {
+        String configJson = Files.readString(Path.of("iso_config_extended_flattened.json"));
+        schema = FieldSchema.compile(objectMapper.readTree(configJson));
+    }
+
+    private IsoMessageBuilder populatedBuilder() {
+        IsoMessageBuilder builder = new IsoMessageBuilder(schema);
+        for (FieldSpec spec : schema.all()) {
+            if (spec.isMti() || spec.isDataElement()) {
+                builder.setField(spec, spec.sampleData);
+            }
+        }
+        return builder;
+    }
+
+    @Test
+    void testEncoderMatchesStringPath() {
+        IsoMessageBuilder builder = populatedBuilder();
+        assertSameAsStringPath(builder);
+
+        // Variable fields whose data overflows the length indicator, and non-ASCII data
+        builder.setField(schema.byKey("2"), "1".repeat(150));
+        builder.setField(schema.byKey("48"), "é€".repeat(600));
+        assertSameAsStringPath(builder);
+
+        // Primary bitmap only
+        IsoMessageBuilder primaryOnly = new IsoMessageBuilder(schema);
+        primaryOnly.setField(schema.byKey("3"), "000000");
+        assertSameAsStringPath(primaryOnly);
+    }
+
+    @Test
+    void testCopyIsIndependent() {
+        IsoMessageBuilder builder = populatedBuilder();
+        String original = builder.buildIsoMessage();
+
+        IsoMessageBuilder copy = builder.copy();
+        copy.setField(schema.byKey("3"), "999999");
+        assert builder.buildIsoMessage().equals(original) : "Changing a copy should not affect the original";
+        assert !copy.buildIsoMessage().equals(original) : "The copy should reflect its own change";
+
+        builder.reset();
+        assert builder.snapshot().isEmpty() : "Reset should clear all fields";
+        assert copy.getFieldValue(3).equals("999999") : "Resetting the original should not affect the copy";
+    }
+
+    private void assertSameAsStringPath(IsoMessageBuilder builder) {
+        byte[] expected = legacyBuild(builder.snapshot()).getBytes(StandardCharsets.UTF_8);
+        IsoMessageEncoder encoder = builder.encode();
+        byte[] actual = Arrays.copyOf(encoder.array(), encoder.length());
+        assert Arrays.equals(expected, actual) : "Encoded bytes differ from the String path";
+        assert Arrays.equals(expected, builder.buildIsoMessageBytes()) : "buildIsoMessageBytes differs from the String path";
+        assert builder.buildIsoMessage().equals(new String(expected, StandardCharsets.UTF_8)) : "buildIsoMessage differs";
+    }
+
+    /**
+     * Reference implementation of the original StringBuilder/String.format build path
+     */
+    private String legacyBuild(SortedMap<Integer, String> isoFields) {
+        boolean[] primaryBitmap = new boolean[64];
+        boolean[] secondaryBitmap = new boolean[64];
+        for (int field : isoFields.keySet()) {
+            if (field == 0) continue;
+            if (field <= 64) {
+                primaryBitmap[field - 1] = true;
+            } else {
+                secondaryBitmap[field - 65] = true;
+                primaryBitmap[0] = true;
+            }
+        }
+
+        StringBuilder message = new StringBuilder(isoFields.getOrDefault(0, "0100"));
+        boolean needsSecondaryBitmap = isoFields.keySet().stream().anyMatch(field -> field >= 65);
+        boolean hasPrimaryFields = isoFields.keySet().stream().anyMatch(field -> field > 0 && field <= 64);
+        if (needsSecondaryBitmap || hasPrimaryFields) {
+            message.append(legacyBitmapToHex(primaryBitmap));
+        }
+        if (needsSecondaryBitmap) {
+            message.append(legacyBitmapToHex(secondaryBitmap));
+        }
+        for (Map.Entry<Integer, String> entry : isoFields.entrySet()) {
+            if (entry.getKey() == 0) continue;
+            FieldSpec spec = schema.field(entry.getKey());
+            if (spec.format == FieldSpec.Format.LLVAR) {
+                message.append(String.format("%02d", entry.getValue().length()));
+            } else if (spec.format == FieldSpec.Format.LLLVAR) {
+                message.append(String.format("%03d", entry.getValue().length()));
+            }
+            message.append(entry.getValue());
+        }
+        return message.toString();
+    }
+
+    private static String legacyBitmapToHex(boolean[] bitmap) {
+        StringBuilder binary = new StringBuilder();
+        for (boolean bit : bitmap) {
+            binary.append(bit ? "1" : "0");
+        }
+        StringBuilder hex = new StringBuilder();
+        for (int i = 0; i < 64; i += 4) {
+            hex.append(Integer.toHexString(Integer.parseInt(binary.substring(i, i + 4), 2)).toUpperCase());
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,280 @@
+package utilities;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * In-process reference decoder for ISO8583 messages, driven by the same compiled {@link FieldSchema}
+ * that builds them. It reads the MTI and bitmaps, walks fixed/llvar/lllvar fields in bitmap order and
+ * produces the parser's [{dataElementId, type, value}] structure together with per-field errors for
+ * length and charset violations.
+ * <p>
+ * Decoding stops at the first error that makes the rest of the message ambiguous (a truncated field,
+ * a bad length indicator or a field missing from the config); other violations are recorded and the
+ * field is still decoded. Decoders are stateless and can be shared between threads.
+ */
+public class IsoMessageDecoder {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final FieldSchema schema;
+
+    public IsoMessageDecoder(FieldSchema schema) {
+        this.schema = schema;
+    }
+
+    /**
+     * A decoded data element as reported by the parser
+     */
+    public static class DecodedField {
+        public final String dataElementId;
+        public final String type;
+        public final String value;
+
+        DecodedField(String dataElementId, String type, String value) {
+            this.dataElementId = dataElementId;
+            this.type = type;
+            this.value = value;
+        }
+    }
+
+    /**
+     * A violation found while decoding a field
+     */
+    public static class FieldError {
+        public final String dataElementId;
+        public final String message;
+
+        FieldError(String dataElementId, String message) {
+            this.dataElementId = dataElementId;
+            this.message = message;
+        }
+
+        @Override
+        public String toString() {
+            return "Field " + dataElementId + ": " + message;
+        }
+    }
+
+    /**
+     * Everything read from one message
+     */
+    public static class DecodeResult {
+        public final String mti;
+        public final long primaryBitmap;
+        public final long secondaryBitmap;
+        public final List<DecodedField> fields;
+        public final List<FieldError> errors;
+
+        DecodeResult(String mti, long primaryBitmap, long secondaryBitmap, List<DecodedField> fields, List<FieldError> errors) {
+            this.mti = mti;
+            this.primaryBitmap = primaryBitmap;
+            this.secondaryBitmap = secondaryBitmap;
+            this.fields = Collections.unmodifiableList(fields);
+            this.errors = Collections.unmodifiableList(errors);
+        }
+
+        public boolean isValid() {
+            return errors.isEmpty();
+        }
+
+        /**
+         * @return the decoded fields in the parser's [{dataElementId, type, value}] form
+         */
+        public ArrayNode toJson() {
+            ArrayNode array = objectMapper.createArrayNode();
+            for (DecodedField field : fields) {
+                ObjectNode element = array.addObject();
+                element.put("dataElementId", field.dataElementId);
+                element.put("type", field.type);
+                element.put("value", field.value);
+            }
+            return array;
+        }
+
+        /**
+         * Renders the result the way the parser service answers: 200 with the field array, or 400 with a
+         * message naming every failing field
+         * @return the equivalent parser response
+         */
+        public ParserResponse toParserResponse() {
+            if (isValid()) {
+                return new ParserResponse(200, toJson().toString());
+            }
+            StringBuilder message = new StringBuilder();
+            for (FieldError error : errors) {
+                if (message.length() > 0) {
+                    message.append("; ");
+                }
+                message.append(error);
+            }
+            ObjectNode body = objectMapper.createObjectNode();
+            body.put("message", message.toString());
+            return new ParserResponse(400, body.toString());
+        }
+    }
+
+    public DecodeResult decode(byte[] isoMessage, int offset, int length) {
+        return decode(new String(isoMessage, offset, length, StandardCharsets.UTF_8));
+    }
+
+    public DecodeResult decode(String isoMessage) {
+        List<DecodedField> fields = new ArrayList<>();
+        List<FieldError> errors = new ArrayList<>();
+
+        // MTI
+        if (isoMessage.length() < 4) {
+            errors.add(new FieldError("MTI", "message is " + isoMessage.length() + " characters, too short for the MTI"));
+            return new DecodeResult(null, 0, 0, fields, errors);
+        }
+        String mti = isoMessage.substring(0, 4);
+        FieldSpec mtiSpec = schema.field(FieldSchema.MTI);
+        if (mtiSpec != null && mtiSpec.indexOfDisallowed(mti) >= 0) {
+            errors.add(new FieldError("MTI", "value '" + mti + "' contains characters outside " + mtiSpec.allowedChars));
+        }
+        int position = 4;
+        if (position == isoMessage.length()) {
+            return new DecodeResult(mti, 0, 0, fields, errors);
+        }
+
+        // Bitmaps
+        int errorCount = errors.size();
+        long primaryBitmap = parseBitmap(isoMessage, position, "1", errors);
+        if (errors.size() > errorCount) {
+            return new DecodeResult(mti, 0, 0, fields, errors);
+        }
+        position += 16;
+        String bitmapHex = isoMessage.substring(4, position);
+
+        long secondaryBitmap = 0;
+        if (IsoBitmap.isSet(primaryBitmap, 1)) {
+            secondaryBitmap = parseBitmap(isoMessage, position, "SecondaryBitmap", errors);
+            if (errors.size() > errorCount) {
+                return new DecodeResult(mti, primaryBitmap, 0, fields, errors);
+            }
+            position += 16;
+            bitmapHex = isoMessage.substring(4, position);
+        }
+        fields.add(new DecodedField("1", "BITMAP", bitmapHex));
+
+        // Data elements in bitmap order
+        for (int field = 2; field <= FieldSchema.MAX_FIELD; field++) {
+            boolean present = field <= 64
+                    ? IsoBitmap.isSet(primaryBitmap, field)
+                    : IsoBitmap.isSet(secondaryBitmap, field - 64);
+            if (!present) continue;
+
+            String id = String.valueOf(field);
+            FieldSpec spec = schema.field(field);
+            if (spec == null) {
+                errors.add(new FieldError(id, "field is present in the bitmap but not configured"));
+                return new DecodeResult(mti, primaryBitmap, secondaryBitmap, fields, errors);
+            }
+
+            int length;
+            if (spec.format.isVariable()) {
+                int digits = spec.format.lengthIndicatorSize;
+                if (position + digits > isoMessage.length()) {
+                    errors.add(new FieldError(id, "message ends inside the length indicator"));
+                    return new DecodeResult(mti, primaryBitmap, secondaryBitmap, fields, errors);
+                }
+                length = parseDigits(isoMessage, position, digits);
+                if (length < 0) {
+                    errors.add(new FieldError(id, "length indicator '" + isoMessage.substring(position, position + digits)
+                            + "' is not numeric"));
+                    return new DecodeResult(mti, primaryBitmap, secondaryBitmap, fields, errors);
+                }
+                position += digits;
+                if (length > spec.maxLength) {
+                    errors.add(new FieldError(id, "length " + length + " exceeds maximum " + spec.maxLength));
+                } else if (length == 0) {
+                    errors.add(new FieldError(id, "value is empty"));
+                }
+            } else {
+                length = spec.length;
+            }
+
+            if (position + length > isoMessage.length()) {
+                errors.add(new FieldError(id, "expected " + length + " characters but only "
+                        + (isoMessage.length() - position) + " remain"));
+                return new DecodeResult(mti, primaryBitmap, secondaryBitmap, fields, errors);
+            }
+
+            String value = isoMessage.substring(position, position + length);
+            position += length;
+            int disallowed = spec.indexOfDisallowed(value);
+            if (disallowed >= 0) {
+                errors.add(new FieldError(id, "character '" + value.charAt(disallowed) + "' at offset " + disallowed
+                        + " is outside " + spec.allowedChars));
+            }
+            fields.add(new DecodedField(id, typeLabel(spec), value));
+        }
+
+        if (position < isoMessage.length()) {
+            errors.add(new FieldError("message", (isoMessage.length() - position) + " unexpected trailing characters"));
+        }
+        return new DecodeResult(mti, primaryBitmap, secondaryBitmap, fields, errors);
+    }
+
+    /**
+     * @return the bitmap, or 0 with an error recorded if it is truncated or not hex
+     */
+    private static long parseBitmap(String isoMessage, int position, String id, List<FieldError> errors) {
+        if (position + 16 > isoMessage.length()) {
+            errors.add(new FieldError(id, "message ends inside the bitmap"));
+            return 0;
+        }
+        long bitmap = 0;
+        for (int i = position; i < position + 16; i++) {
+            int nibble = Character.digit(isoMessage.charAt(i), 16);
+            if (nibble < 0) {
+                errors.add(new FieldError(id, "bitmap '" + isoMessage.substring(position, position + 16) + "' is not hexadecimal"));
+                return 0;
+            }
+            bitmap = bitmap << 4 | nibble;
+        }
+        return bitmap;
+    }
+
+    private static int parseDigits(String text, int position, int digits) {
+        int value = 0;
+        for (int i = position; i < position + digits; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Maps a field to the type label the parser reports for it
+     */
+    static String typeLabel(FieldSpec spec) {
+        switch (spec.format) {
+            case LLVAR:
+                return "LLVAR";
+            case LLLVAR:
+                return "LLLVAR";
+            case BITMAP:
+                return "BITMAP";
+            default:
+                switch (spec.type) {
+                    case NUMERIC:
+                        return "NUMERIC";
+                    case BINARY:
+                        return "BINARY";
+                    case HEX:
+                        return "HEX";
+                    default:
+                        return "CHAR";
+                }
+        }
+    }
+}
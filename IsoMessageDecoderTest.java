@@ -0,0 +1,97 @@
+package utilities;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class IsoMessageDecoderTest {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private FieldSchema schema;
+    private IsoMessageDecoder decoder;
+
+    @BeforeAll
+    void setup() throws IOException {
+        String configJson = Files.readString(Path.of("iso_config_extended_flattened.json"));
+        schema = FieldSchema.compile(objectMapper.readTree(configJson));
+        decoder = new IsoMessageDecoder(schema);
+    }
+
+    private IsoMessageBuilder validBuilder() {
+        IsoMessageBuilder builder = new IsoMessageBuilder(schema);
+        builder.setField(schema.byKey("MTI"), "0200");
+        builder.setField(schema.byKey("2"), "5314451120000000");
+        builder.setField(schema.byKey("3"), "000000");
+        builder.setField(schema.byKey("4"), "000000020000");
+        builder.setField(schema.byKey("48"), "13ABC1235MAX025");
+        builder.setField(schema.byKey("67"), "01");
+        builder.setField(schema.byKey("128"), schema.byKey("128").sampleData);
+        return builder;
+    }
+
+    @Test
+    void testRoundTrip() {
+        IsoMessageBuilder builder = validBuilder();
+        IsoMessageDecoder.DecodeResult result = decoder.decode(builder.buildIsoMessage());
+
+        assert result.isValid() : "Valid message should decode without errors but got " + result.errors;
+        assert result.mti.equals("0200") : "MTI should be decoded";
+        assert result.primaryBitmap == builder.getPrimaryBitmap() : "Primary bitmap should round-trip";
+        assert result.secondaryBitmap == builder.getSecondaryBitmap() : "Secondary bitmap should round-trip";
+
+        Map<Integer, String> expected = builder.snapshot();
+        assert result.fields.size() == expected.size() : "Expected bitmap element plus one element per data field";
+        for (IsoMessageDecoder.DecodedField field : result.fields) {
+            if (field.dataElementId.equals("1")) continue;
+            assert field.value.equals(expected.get(Integer.parseInt(field.dataElementId))) :
+                "Value mismatch for field " + field.dataElementId;
+        }
+    }
+
+    @Test
+    void testResponseShapeMatchesParser() throws IOException {
+        JsonNode parserSample = objectMapper.readTree(Files.readString(Path.of("messageResponse.json")));
+        ParserResponse response = decoder.decode(validBuilder().buildIsoMessage()).toParserResponse();
+        JsonNode decoded = objectMapper.readTree(response.body);
+
+        assert response.statusCode == 200 : "Valid message should map to 200";
+        for (JsonNode element : decoded) {
+            for (java.util.Iterator<String> it = parserSample.get(0).fieldNames(); it.hasNext(); ) {
+                String attribute = it.next();
+                assert element.has(attribute) : "Decoded element is missing '" + attribute + "'";
+            }
+        }
+        assert decoded.get(1).get("type").asText().equals("LLVAR") : "Field 2 should be reported as LLVAR";
+        assert decoded.get(1).get("value").asText().equals("5314451120000000") : "LLVAR value should exclude the length indicator";
+    }
+
+    @Test
+    void testFieldErrors() {
+        IsoMessageBuilder charset = validBuilder().setField(schema.byKey("3"), "12A456");
+        assertSingleError(charset.buildIsoMessage(), "3");
+
+        IsoMessageBuilder tooLong = validBuilder().setField(schema.byKey("2"), "1".repeat(20));
+        assertSingleError(tooLong.buildIsoMessage(), "2");
+
+        String message = validBuilder().buildIsoMessage();
+        IsoMessageDecoder.DecodeResult truncated = decoder.decode(message.substring(0, message.length() - 1));
+        assert !truncated.isValid() && truncated.errors.get(0).dataElementId.equals("128") :
+            "Truncated message should report the last field";
+
+        ParserResponse response = decoder.decode(charset.buildIsoMessage()).toParserResponse();
+        assert response.statusCode == 400 && response.body.contains("Field 3") : "Errors should map to 400 naming the field";
+    }
+
+    private void assertSingleError(String isoMessage, String dataElementId) {
+        IsoMessageDecoder.DecodeResult result = decoder.decode(isoMessage);
+        assert result.errors.size() == 1 : "Expected one error but got " + result.errors;
+        assert result.errors.get(0).dataElementId.equals(dataElementId) : "Expected error on field " + dataElementId;
+    }
+}
@@ -0,0 +1,156 @@
+package utilities;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Writes an ISO8583 message straight into a reusable byte array.
+ * Length indicators come from precomputed ASCII digit tables and ASCII field data is copied byte by byte,
+ * so encoding a message allocates nothing once the buffer has grown to the message size.
+ * The output is byte-identical to encoding the equivalent String as UTF-8.
+ * Instances are not thread-safe; keep one per thread or per {@link IsoMessageBuilder}.
+ */
+public final class IsoMessageEncoder {
+    private static final byte[] DIGITS_2 = new byte[100 * 2];
+    private static final byte[] DIGITS_3 = new byte[1000 * 3];
+
+    static {
+        for (int i = 0; i < 100; i++) {
+            DIGITS_2[i * 2] = (byte) ('0' + i / 10);
+            DIGITS_2[i * 2 + 1] = (byte) ('0' + i % 10);
+        }
+        for (int i = 0; i < 1000; i++) {
+            DIGITS_3[i * 3] = (byte) ('0' + i / 100);
+            DIGITS_3[i * 3 + 1] = (byte) ('0' + i / 10 % 10);
+            DIGITS_3[i * 3 + 2] = (byte) ('0' + i % 10);
+        }
+    }
+
+    private byte[] buffer;
+    private int position;
+
+    public IsoMessageEncoder() {
+        this(512);
+    }
+
+    public IsoMessageEncoder(int initialCapacity) {
+        this.buffer = new byte[Math.max(16, initialCapacity)];
+    }
+
+    /**
+     * Discards the current message so the buffer can be reused
+     * @return this encoder
+     */
+    public IsoMessageEncoder reset() {
+        position = 0;
+        return this;
+    }
+
+    /**
+     * Appends text, copying ASCII characters directly and falling back to UTF-8 for anything else
+     * @param text the text to append
+     * @return this encoder
+     */
+    public IsoMessageEncoder writeText(String text) {
+        int length = text.length();
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80) {
+                writeBytes(text.substring(i).getBytes(StandardCharsets.UTF_8));
+                return this;
+            }
+            buffer[position++] = (byte) c;
+        }
+        return this;
+    }
+
+    /**
+     * Appends a zero-padded length indicator, matching String.format("%02d") / ("%03d")
+     * @param length the value to write
+     * @param digits the minimum number of digits (2 for LLVAR, 3 for LLLVAR)
+     * @return this encoder
+     */
+    public IsoMessageEncoder writeLength(int length, int digits) {
+        if (digits == 2 && length >= 0 && length < 100) {
+            ensureCapacity(2);
+            System.arraycopy(DIGITS_2, length * 2, buffer, position, 2);
+            position += 2;
+        } else if (digits == 3 && length >= 0 && length < 1000) {
+            ensureCapacity(3);
+            System.arraycopy(DIGITS_3, length * 3, buffer, position, 3);
+            position += 3;
+        } else {
+            // Wider than the indicator: String.format prints every digit, so do the same
+            writeText(String.format("%0" + digits + "d", length));
+        }
+        return this;
+    }
+
+    /**
+     * Appends a bitmap as 16 upper-case hex characters
+     * @param bitmap the bitmap, position 1 in the most significant bit
+     * @return this encoder
+     */
+    public IsoMessageEncoder writeBitmapHex(long bitmap) {
+        ensureCapacity(16);
+        position += IsoBitmap.writeHex(bitmap, buffer, position);
+        return this;
+    }
+
+    /**
+     * Appends a bitmap as 8 raw big-endian bytes
+     * @param bitmap the bitmap, position 1 in the most significant bit
+     * @return this encoder
+     */
+    public IsoMessageEncoder writeBitmapBinary(long bitmap) {
+        ensureCapacity(8);
+        position += IsoBitmap.writeBinary(bitmap, buffer, position);
+        return this;
+    }
+
+    public IsoMessageEncoder writeBytes(byte[] bytes) {
+        return writeBytes(bytes, 0, bytes.length);
+    }
+
+    public IsoMessageEncoder writeBytes(byte[] bytes, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, buffer, position, length);
+        position += length;
+        return this;
+    }
+
+    private void ensureCapacity(int additional) {
+        if (position + additional > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + additional));
+        }
+    }
+
+    /**
+     * @return the internal buffer; only the first {@link #length()} bytes belong to the current message
+     */
+    public byte[] array() {
+        return buffer;
+    }
+
+    public int length() {
+        return position;
+    }
+
+    /**
+     * @return a read-only view of the current message, valid until the encoder is reset
+     */
+    public ByteBuffer toByteBuffer() {
+        return ByteBuffer.wrap(buffer, 0, position).asReadOnlyBuffer();
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    @Override
+    public String toString() {
+        return new String(buffer, 0, position, StandardCharsets.UTF_8);
+    }
+}
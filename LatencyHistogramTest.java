@@ -0,0 +1,46 @@
+package utilities;
+
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    void testPercentilesWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 10_000; micros++) {
+            histogram.record(micros * 1_000);
+        }
+
+        assert histogram.getCount() == 10_000 : "Every value should be counted";
+        assert histogram.getMax() == 10_000_000 : "Max should be exact";
+        for (double percentile : new double[]{50, 90, 99, 99.9}) {
+            long expected = (long) (percentile * 100) * 1_000;
+            long actual = histogram.getValueAtPercentile(percentile);
+            assert actual >= expected && actual <= expected * 1.016 :
+                "p" + percentile + " should be within 1.6% of " + expected + " but was " + actual;
+        }
+    }
+
+    @Test
+    void testBucketsAreContiguous() {
+        for (long value = 0; value < 1 << 20; value++) {
+            int index = LatencyHistogram.indexOf(value);
+            assert value <= LatencyHistogram.upperBoundOf(index) : "Value " + value + " should not exceed its bucket";
+            assert index == 0 || value > LatencyHistogram.upperBoundOf(index - 1) : "Value " + value + " should not fit the previous bucket";
+        }
+    }
+
+    @Test
+    void testAdd() {
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        first.record(100);
+        second.record(5_000_000);
+        second.record(-1);
+
+        first.add(second);
+        assert first.getCount() == 3 : "Counts should be merged";
+        assert first.getMax() == 5_000_000 : "Max should be merged";
+        assert first.getValueAtPercentile(0) == 0 : "Negative values should be recorded as 0";
+    }
+}
@@ -0,0 +1,452 @@
+package utilities;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sustained-load mode: sends a mix of valid and invalid messages at a fixed rate for a fixed time and
+ * reports latency percentiles and error rates per MTI and per test category.
+ * <p>
+ * Messages are the ones the functional tests send: for every field with invalid values, a base message with
+ * the field's sample data and generated defaults, plus that base with each invalid value spliced in. They are
+ * all built before the run starts, so the measured rate is not limited by message building. With a
+ * {@link MessageCorpus} (-Diso.load.corpus=&lt;file&gt;) its messages are replayed in order instead, wrapping
+ * around at the end, and checked against the outcomes in its index.
+ * <p>
+ * The schedule is open: message i is due at start + i / rate, whether or not earlier messages have been
+ * answered, and its latency is measured from that intended start rather than from when it was actually sent.
+ * A parser that stalls therefore shows up in the percentiles as the full wait every queued message saw
+ * instead of a single slow sample (coordinated omission). At most maxInFlight messages are outstanding;
+ * time spent waiting for a free slot is charged to the messages that waited.
+ */
+public class LoadGenerator {
+    public static final String TPS_PROPERTY = "iso.load.tps";
+    public static final String DURATION_PROPERTY = "iso.load.durationSeconds";
+    public static final String INVALID_RATIO_PROPERTY = "iso.load.invalidRatio";
+    public static final String MAX_IN_FLIGHT_PROPERTY = "iso.load.maxInFlight";
+    public static final String MTIS_PROPERTY = "iso.load.mtis";
+    public static final String SEED_PROPERTY = "iso.load.seed";
+    public static final String CORPUS_PROPERTY = "iso.load.corpus";
+    public static final int DEFAULT_TPS = 100;
+    public static final int DEFAULT_DURATION_SECONDS = 60;
+    public static final double DEFAULT_INVALID_RATIO = 0.2;
+    public static final int DEFAULT_MAX_IN_FLIGHT = 256;
+    public static final String VALID_CATEGORY = "valid";
+    // Reported for corpus messages that could not be read
+    public static final String UNREADABLE_CATEGORY = "unreadable";
+
+    private final FieldSchema schema;
+    private final ParserTransport transport;
+    private double targetTps = DEFAULT_TPS;
+    private Duration duration = Duration.ofSeconds(DEFAULT_DURATION_SECONDS);
+    private double invalidRatio = DEFAULT_INVALID_RATIO;
+    private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+    private List<String> mtis = List.of();
+    private long seed = FieldValueGenerator.nextSeed();
+    private MessageCorpus corpus;
+
+    /**
+     * @param schema the schema messages are built from
+     * @param transport the transport the load is sent through
+     */
+    public LoadGenerator(FieldSchema schema, ParserTransport transport) {
+        this.schema = schema;
+        this.transport = transport;
+    }
+
+    /**
+     * @param targetTps messages started per second
+     * @param duration how long to keep the rate up
+     * @return this generator
+     */
+    public LoadGenerator withRate(double targetTps, Duration duration) {
+        if (targetTps <= 0) {
+            throw new IllegalArgumentException("Target TPS must be positive but was " + targetTps);
+        }
+        this.targetTps = targetTps;
+        this.duration = duration;
+        return this;
+    }
+
+    /**
+     * @param invalidRatio fraction of messages, between 0 and 1, that carry an invalid value
+     * @return this generator
+     */
+    public LoadGenerator withInvalidRatio(double invalidRatio) {
+        this.invalidRatio = Math.min(1.0, Math.max(0.0, invalidRatio));
+        return this;
+    }
+
+    /**
+     * @param maxInFlight the most messages waiting for a response at once
+     * @return this generator
+     */
+    public LoadGenerator withMaxInFlight(int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be at least 1 but was " + maxInFlight);
+        }
+        this.maxInFlight = maxInFlight;
+        return this;
+    }
+
+    /**
+     * Spreads base messages evenly over several MTIs instead of the default "0100"
+     * @param mtis the MTIs to use
+     * @return this generator
+     */
+    public LoadGenerator withMtis(List<String> mtis) {
+        this.mtis = List.copyOf(mtis);
+        return this;
+    }
+
+    /**
+     * @param seed seeds message selection and default field values, so a run can be repeated
+     * @return this generator
+     */
+    public LoadGenerator withSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Replays a prebuilt corpus instead of building messages from the config; the invalid ratio and MTIs
+     * are then those of the corpus
+     * @param corpus the open corpus, which the caller closes after the run
+     * @return this generator
+     */
+    public LoadGenerator withCorpus(MessageCorpus corpus) {
+        if (corpus.size() == 0) {
+            throw new IllegalArgumentException("Corpus has no messages");
+        }
+        this.corpus = corpus;
+        return this;
+    }
+
+    /**
+     * Applies -Diso.load.tps, -Diso.load.durationSeconds, -Diso.load.invalidRatio, -Diso.load.maxInFlight,
+     * -Diso.load.mtis (comma separated) and -Diso.load.seed where set
+     * @return this generator
+     */
+    public LoadGenerator withSystemProperties() {
+        withRate(Double.parseDouble(System.getProperty(TPS_PROPERTY, String.valueOf(targetTps))),
+                Duration.ofSeconds(Long.getLong(DURATION_PROPERTY, duration.getSeconds())));
+        withInvalidRatio(Double.parseDouble(System.getProperty(INVALID_RATIO_PROPERTY, String.valueOf(invalidRatio))));
+        withMaxInFlight(Integer.getInteger(MAX_IN_FLIGHT_PROPERTY, maxInFlight));
+        String mtiList = System.getProperty(MTIS_PROPERTY);
+        if (mtiList != null && !mtiList.isBlank()) {
+            List<String> configured = new ArrayList<>();
+            for (String mti : mtiList.split(",")) {
+                if (!mti.isBlank()) {
+                    configured.add(mti.trim());
+                }
+            }
+            withMtis(configured);
+        }
+        Long configuredSeed = Long.getLong(SEED_PROPERTY);
+        if (configuredSeed != null) {
+            withSeed(configuredSeed);
+        }
+        return this;
+    }
+
+    /**
+     * Builds the messages, then runs the load until the duration has passed and every message is answered
+     * @return the report
+     */
+    public LoadReport run() throws IOException {
+        List<LoadMessage> valid = new ArrayList<>();
+        List<LoadMessage> invalid = new ArrayList<>();
+        if (corpus == null) {
+            buildMessages(valid, invalid);
+        }
+        if (corpus == null && valid.isEmpty() && invalid.isEmpty()) {
+            throw new IOException("No field in the config has sample data to build load messages from");
+        }
+
+        long total = Math.max(1, (long) (targetTps * duration.toNanos() / 1_000_000_000.0));
+        double intervalNanos = 1_000_000_000.0 / targetTps;
+        SplittableRandom random = new SplittableRandom(seed);
+        Semaphore permits = new Semaphore(maxInFlight);
+        LoadReport report = new LoadReport(targetTps, invalidRatio, maxInFlight);
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; i < total; i++) {
+                LoadMessage message = null;
+                if (corpus == null) {
+                    boolean sendInvalid = valid.isEmpty() || (!invalid.isEmpty() && random.nextDouble() < invalidRatio);
+                    List<LoadMessage> pool = sendInvalid ? invalid : valid;
+                    message = pool.get(random.nextInt(pool.size()));
+                }
+
+                long intendedStart = start + (long) (i * intervalNanos);
+                long wait;
+                while ((wait = intendedStart - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                try {
+                    permits.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while generating load", e);
+                }
+                LoadMessage prebuilt = message;
+                long corpusIndex = i % (corpus == null ? 1 : corpus.size());
+                executor.submit(() -> {
+                    try {
+                        send(prebuilt, corpusIndex, intendedStart, report);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        }
+        report.elapsedNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    /**
+     * Sends a prebuilt message, or reads corpus message corpusIndex first when message is null, so corpus
+     * reads overlap like sends do
+     */
+    private void send(LoadMessage message, long corpusIndex, long intendedStart, LoadReport report) {
+        long sentAt = System.nanoTime();
+        ParserResponse response = null;
+        try {
+            if (message == null) {
+                MessageCorpus.Entry entry = corpus.entry(corpusIndex);
+                message = new LoadMessage(entry.mti(), entry.category, entry.isoMessage);
+            }
+            response = transport.send(message.isoMessage);
+        } catch (IOException | RuntimeException e) {
+            // Counted as an error below
+        }
+        if (message == null) {
+            message = new LoadMessage(null, UNREADABLE_CATEGORY, "");
+        }
+        long completedAt = System.nanoTime();
+        report.record(message, response, completedAt - intendedStart, completedAt - sentAt, sentAt - intendedStart);
+    }
+
+    /**
+     * Builds one base message per field with invalid values, rotating through the MTIs, and one spliced
+     * message per invalid category of that field
+     */
+    private void buildMessages(List<LoadMessage> valid, List<LoadMessage> invalid) {
+        SplittableRandom random = new SplittableRandom(seed);
+        FieldSpec mtiSpec = schema.field(FieldSchema.MTI);
+        IsoMessageBuilder builder = new IsoMessageBuilder(schema);
+        int next = 0;
+        for (FieldSpec spec : schema.all()) {
+            if (spec.isBitmap() || spec.sampleData == null) continue;
+            List<String> categories = new ArrayList<>();
+            for (String testCategory : CreateIsoMessage.TEST_CATEGORIES) {
+                if (spec.hasInvalidValue(testCategory)) {
+                    categories.add(testCategory);
+                }
+            }
+            if (categories.isEmpty()) continue;
+
+            builder.reset();
+            if (!mtis.isEmpty() && mtiSpec != null) {
+                builder.setField(mtiSpec, mtis.get(next++ % mtis.size()));
+            }
+            builder.applyBddUpdate(spec, spec.sampleData, spec.type.configName);
+            builder.generateDefaultFields(random.nextLong());
+            String mti = builder.getFieldValue(FieldSchema.MTI);
+            MessageTemplate template = MessageTemplate.of(builder);
+            valid.add(new LoadMessage(mti, VALID_CATEGORY, template.baseMessage()));
+
+            for (String testCategory : categories) {
+                try {
+                    String value = IsoMessageBuilder.prepareValue(spec, spec.getInvalidValue(testCategory), spec.type.configName);
+                    invalid.add(new LoadMessage(mti, testCategory, template.withField(spec, value)));
+                } catch (Exception e) {
+                    EventLog.console().summary("load.skipped", "Warning: Skipping " + testCategory + " for field " + spec.key + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * One prebuilt message and the groups it is reported under
+     */
+    static final class LoadMessage {
+        final String mti;
+        final String category;
+        final String isoMessage;
+
+        LoadMessage(String mti, String category, String isoMessage) {
+            this.mti = mti;
+            this.category = category;
+            this.isoMessage = isoMessage;
+        }
+
+        boolean expectsError() {
+            return !VALID_CATEGORY.equals(category);
+        }
+    }
+
+    /**
+     * Counts and latencies for one group of messages. Errors are transport failures and 5xx responses;
+     * mismatches are valid messages the parser rejected and invalid messages it accepted.
+     */
+    public static final class GroupStats {
+        public final LatencyHistogram latency = new LatencyHistogram();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong mismatches = new AtomicLong();
+
+        public long getCount() {
+            return latency.getCount();
+        }
+
+        public long getErrors() {
+            return errors.get();
+        }
+
+        public long getMismatches() {
+            return mismatches.get();
+        }
+
+        /**
+         * @return errors as a fraction of messages sent
+         */
+        public double getErrorRate() {
+            long count = getCount();
+            return count == 0 ? 0 : (double) errors.get() / count;
+        }
+    }
+
+    /**
+     * Results of a load run. Latency is measured from each message's intended start; service time from
+     * when it was actually handed to the transport.
+     */
+    public static final class LoadReport {
+        public final double targetTps;
+        public final double invalidRatio;
+        public final int maxInFlight;
+        public final GroupStats overall = new GroupStats();
+        public final LatencyHistogram serviceTime = new LatencyHistogram();
+        public final LatencyHistogram sendLag = new LatencyHistogram();
+        private final Map<String, GroupStats> byMti = new ConcurrentHashMap<>();
+        private final Map<String, GroupStats> byCategory = new ConcurrentHashMap<>();
+        long elapsedNanos;
+
+        LoadReport(double targetTps, double invalidRatio, int maxInFlight) {
+            this.targetTps = targetTps;
+            this.invalidRatio = invalidRatio;
+            this.maxInFlight = maxInFlight;
+        }
+
+        void record(LoadMessage message, ParserResponse response, long latency, long service, long lag) {
+            boolean error = response == null || response.statusCode >= 500;
+            boolean mismatch = !error && response.isError() != message.expectsError();
+            serviceTime.record(service);
+            sendLag.record(lag);
+            for (GroupStats stats : List.of(overall,
+                    byMti.computeIfAbsent(String.valueOf(message.mti), k -> new GroupStats()),
+                    byCategory.computeIfAbsent(message.category, k -> new GroupStats()))) {
+                stats.latency.record(latency);
+                if (error) stats.errors.incrementAndGet();
+                if (mismatch) stats.mismatches.incrementAndGet();
+            }
+        }
+
+        /**
+         * @return stats per MTI, sorted by MTI
+         */
+        public Map<String, GroupStats> getByMti() {
+            return new TreeMap<>(byMti);
+        }
+
+        /**
+         * @return stats per test category ("valid" for valid messages), sorted by category
+         */
+        public Map<String, GroupStats> getByCategory() {
+            return new TreeMap<>(byCategory);
+        }
+
+        public Duration getElapsed() {
+            return Duration.ofNanos(elapsedNanos);
+        }
+
+        /**
+         * @return messages completed per second over the whole run
+         */
+        public double getAchievedTps() {
+            return elapsedNanos == 0 ? 0 : overall.getCount() * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        /**
+         * Prints the run settings, throughput and one latency line per group
+         * @param out where the report is written
+         */
+        public void print(PrintStream out) {
+            out.println("\n==============================================");
+            out.println("LOAD TEST REPORT");
+            out.println("==============================================");
+            out.println(String.format("Target TPS: %.1f, achieved: %.1f over %.1fs", targetTps, getAchievedTps(),
+                    elapsedNanos / 1_000_000_000.0));
+            out.println(String.format("Invalid ratio: %.2f, max in flight: %d", invalidRatio, maxInFlight));
+            out.println(String.format("Service time p50/p99: %s / %s ms, send lag p99/max: %s / %s ms",
+                    millis(serviceTime.getValueAtPercentile(50)), millis(serviceTime.getValueAtPercentile(99)),
+                    millis(sendLag.getValueAtPercentile(99)), millis(sendLag.getMax())));
+            out.println("Latency from intended start, in ms:");
+            out.println(String.format("  %-32s %8s %8s %9s %9s %9s %9s %9s %9s %9s",
+                    "", "count", "errors", "error%", "mismatch", "p50", "p90", "p99", "p99.9", "max"));
+            printRow(out, "all", overall);
+            out.println("By MTI:");
+            getByMti().forEach((mti, stats) -> printRow(out, mti, stats));
+            out.println("By category:");
+            getByCategory().forEach((category, stats) -> printRow(out, category, stats));
+            out.println("==============================================");
+        }
+
+        private static void printRow(PrintStream out, String label, GroupStats stats) {
+            LatencyHistogram latency = stats.latency;
+            out.println(String.format("  %-32s %8d %8d %8.2f%% %9d %9s %9s %9s %9s %9s",
+                    label, stats.getCount(), stats.getErrors(), stats.getErrorRate() * 100, stats.getMismatches(),
+                    millis(latency.getValueAtPercentile(50)), millis(latency.getValueAtPercentile(90)),
+                    millis(latency.getValueAtPercentile(99)), millis(latency.getValueAtPercentile(99.9)),
+                    millis(latency.getMax())));
+        }
+
+        private static String millis(long nanos) {
+            return String.format("%.3f", nanos / 1_000_000.0);
+        }
+    }
+
+    /**
+     * Runs a load test from the command line against the configured parser (-Diso.parser.url, or
+     * -Diso.parser.embedded=true for the stub) with the -Diso.load.* settings, replaying -Diso.load.corpus if set,
+     * and prints the report
+     * @param args [config file], relative to src/test/resources, defaulting to iso_config_extended_flattened.json
+     */
+    public static void main(String[] args) throws IOException {
+        CreateIsoMessage.loadConfig(args.length > 0 ? args[0] : "iso_config_extended_flattened.json");
+        String corpusFile = System.getProperty(CORPUS_PROPERTY);
+        try (MessageCorpus corpus = corpusFile != null ? MessageCorpus.open(Path.of(corpusFile)) : null) {
+            LoadGenerator generator = new LoadGenerator(CreateIsoMessage.getSchema(), CreateIsoMessage.getTransport())
+                    .withSystemProperties();
+            if (corpus != null) {
+                generator.withCorpus(corpus);
+            }
+            generator.run().print(System.out);
+        } finally {
+            CreateIsoMessage.stopEmbeddedParser();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package utilities;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class LoadGeneratorTest {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private FieldSchema schema;
+    private ParserStubServer stub;
+
+    @BeforeAll
+    void setup() throws IOException {
+        String configJson = Files.readString(Path.of("iso_config_extended_flattened.json"));
+        schema = FieldSchema.compile(objectMapper.readTree(configJson));
+        stub = ParserStubServer.forSchema(schema).start();
+    }
+
+    @AfterAll
+    void tearDown() {
+        stub.close();
+    }
+
+    @Test
+    void testHoldsRateAndGroupsResults() throws IOException {
+        LoadGenerator.LoadReport report = new LoadGenerator(schema, new HttpClientTransport(stub.getUrl()))
+                .withRate(200, Duration.ofSeconds(1))
+                .withInvalidRatio(0.5)
+                .withMtis(List.of("0100", "0200"))
+                .withSeed(7)
+                .run();
+
+        assert report.overall.getCount() == 200 : "Every scheduled message should be sent";
+        assert report.overall.getErrors() == 0 : "Stub should not fail any message";
+        assert report.getByMti().keySet().equals(Set.of("0100", "0200")) : "Both MTIs should be reported";
+        assert report.getByCategory().containsKey(LoadGenerator.VALID_CATEGORY) : "Valid messages should be reported";
+        assert report.getByCategory().size() > 1 : "Invalid categories should be reported";
+        assert report.getElapsed().toMillis() >= 990 : "Run should last the requested duration";
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        report.print(new PrintStream(buffer, true, StandardCharsets.UTF_8));
+        assert buffer.toString(StandardCharsets.UTF_8).contains("p99.9") : "Report should list the percentiles";
+    }
+
+    @Test
+    void testLatencyIncludesQueueingBehindSlowResponses() throws IOException {
+        try (ParserStubServer slow = ParserStubServer.forSchema(schema).withLatency(100, 0).start()) {
+            // One message in flight at 50 TPS against a 100ms parser: each message waits for the ones before it
+            LoadGenerator.LoadReport report = new LoadGenerator(schema, new HttpClientTransport(slow.getUrl()))
+                    .withRate(50, Duration.ofSeconds(1))
+                    .withMaxInFlight(1)
+                    .withSeed(7)
+                    .run();
+
+            long p99Millis = report.overall.latency.getValueAtPercentile(99) / 1_000_000;
+            long serviceMillis = report.serviceTime.getValueAtPercentile(99) / 1_000_000;
+            assert serviceMillis < 1_000 : "Service time should stay near the stub latency but was " + serviceMillis;
+            assert p99Millis > 2 * serviceMillis : "Latency should include time queued behind slow responses but was " + p99Millis;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package utilities;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A corpus of prebuilt messages written by {@link CorpusGenerator}, read back for load and regression runs
+ * without building a single message.
+ * <p>
+ * The corpus file holds a 16-byte header (magic, message count) followed by one frame per message: a 4-byte
+ * big-endian length and the encoded message. The sidecar index (the corpus path plus ".idx") holds a header
+ * (magic, message count, the category names) followed by one fixed-size entry per message: the frame offset,
+ * the message length, whether the parser is expected to reject it, its category and the field it targets.
+ * Because entries are fixed-size, message i can be looked up without reading the messages before it.
+ * <p>
+ * Both files are read through memory-mapped windows of at most {@link #WINDOW_SIZE} bytes, so corpora larger
+ * than RAM or than a single mapping (2 GiB) can be iterated. Lookups with {@link #entry(long)} use positional
+ * reads and are thread-safe.
+ */
+public final class MessageCorpus implements Closeable {
+    static final long CORPUS_MAGIC = 0x49534F434F525031L; // "ISOCORP1"
+    static final long INDEX_MAGIC = 0x49534F4944583031L; // "ISOIDX01"
+    static final int CORPUS_HEADER_SIZE = 16;
+    static final int FRAME_HEADER_SIZE = 4;
+    static final int INDEX_ENTRY_SIZE = 16;
+    static final String INDEX_SUFFIX = ".idx";
+    // Category byte of a valid message
+    static final int VALID = 0xFF;
+    static final long WINDOW_SIZE = 256L << 20;
+
+    private final FileChannel corpus;
+    private final FileChannel index;
+    private final long count;
+    private final long entriesOffset;
+    private final List<String> categories;
+
+    /**
+     * One message and its expected outcome
+     */
+    public static final class Entry {
+        public final long index;
+        /** Offset of the message's frame in the corpus file */
+        public final long offset;
+        /** Length of the encoded message, without the frame header */
+        public final int length;
+        public final boolean expectsError;
+        /** The test category of a mutated message, or {@link LoadGenerator#VALID_CATEGORY} */
+        public final String category;
+        /** The number of the field the message targets */
+        public final int fieldNumber;
+        public final String isoMessage;
+
+        Entry(long index, long offset, int length, boolean expectsError, String category, int fieldNumber, String isoMessage) {
+            this.index = index;
+            this.offset = offset;
+            this.length = length;
+            this.expectsError = expectsError;
+            this.category = category;
+            this.fieldNumber = fieldNumber;
+            this.isoMessage = isoMessage;
+        }
+
+        /**
+         * @return the message's MTI, its first four characters
+         */
+        public String mti() {
+            return isoMessage.substring(0, Math.min(4, isoMessage.length()));
+        }
+    }
+
+    private MessageCorpus(FileChannel corpus, FileChannel index) throws IOException {
+        this.corpus = corpus;
+        this.index = index;
+
+        ByteBuffer header = readFully(corpus, 0, CORPUS_HEADER_SIZE);
+        if (header.getLong() != CORPUS_MAGIC) {
+            throw new IOException("Not a message corpus");
+        }
+        this.count = header.getLong();
+
+        ByteBuffer indexHeader = readFully(index, 0, 20);
+        if (indexHeader.getLong() != INDEX_MAGIC || indexHeader.getLong() != count) {
+            throw new IOException("Corpus index does not belong to the corpus");
+        }
+        int categoryCount = indexHeader.getInt();
+        List<String> names = new ArrayList<>(categoryCount);
+        long position = 20;
+        for (int i = 0; i < categoryCount; i++) {
+            int length = readFully(index, position, 2).getShort() & 0xFFFF;
+            ByteBuffer name = readFully(index, position + 2, length);
+            names.add(StandardCharsets.UTF_8.decode(name).toString());
+            position += 2 + length;
+        }
+        this.categories = Collections.unmodifiableList(names);
+        this.entriesOffset = position;
+    }
+
+    /**
+     * Opens a corpus and its sidecar index
+     * @param file the corpus file
+     * @return the open corpus
+     */
+    public static MessageCorpus open(Path file) throws IOException {
+        FileChannel corpus = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            FileChannel index = FileChannel.open(indexPath(file), StandardOpenOption.READ);
+            try {
+                return new MessageCorpus(corpus, index);
+            } catch (IOException | RuntimeException e) {
+                index.close();
+                throw e;
+            }
+        } catch (IOException | RuntimeException e) {
+            corpus.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @param file the corpus file
+     * @return the path of its sidecar index
+     */
+    public static Path indexPath(Path file) {
+        return file.resolveSibling(file.getFileName() + INDEX_SUFFIX);
+    }
+
+    /**
+     * @return the number of messages
+     */
+    public long size() {
+        return count;
+    }
+
+    /**
+     * @return the category names the index refers to
+     */
+    public List<String> getCategories() {
+        return categories;
+    }
+
+    /**
+     * Reads one message and its expected outcome
+     * @param i the message index, from 0 to {@link #size()} - 1
+     * @return the entry
+     */
+    public Entry entry(long i) throws IOException {
+        if (i < 0 || i >= count) {
+            throw new IndexOutOfBoundsException("Message " + i + " outside corpus of " + count);
+        }
+        ByteBuffer entry = readFully(index, entriesOffset + i * INDEX_ENTRY_SIZE, INDEX_ENTRY_SIZE);
+        long offset = entry.getLong();
+        int length = entry.getInt();
+        ByteBuffer message = readFully(corpus, offset + FRAME_HEADER_SIZE, length);
+        return toEntry(i, offset, length, entry, StandardCharsets.UTF_8.decode(message).toString());
+    }
+
+    /**
+     * Reads every message in order through mapped windows
+     * @param action called with each entry
+     */
+    public void forEach(Consumer<Entry> action) throws IOException {
+        Window messages = new Window(corpus);
+        Window entries = new Window(index);
+        byte[] bytes = new byte[512];
+        for (long i = 0; i < count; i++) {
+            ByteBuffer entry = entries.at(entriesOffset + i * INDEX_ENTRY_SIZE, INDEX_ENTRY_SIZE);
+            long offset = entry.getLong();
+            int length = entry.getInt();
+            if (bytes.length < length) {
+                bytes = new byte[Math.max(length, bytes.length * 2)];
+            }
+            messages.at(offset + FRAME_HEADER_SIZE, length).get(bytes, 0, length);
+            action.accept(toEntry(i, offset, length, entry, new String(bytes, 0, length, StandardCharsets.UTF_8)));
+        }
+    }
+
+    private Entry toEntry(long i, long offset, int length, ByteBuffer entry, String isoMessage) {
+        boolean expectsError = entry.get() != 0;
+        int category = entry.get() & 0xFF;
+        int fieldNumber = entry.getShort();
+        return new Entry(i, offset, length, expectsError,
+                category == VALID ? LoadGenerator.VALID_CATEGORY : categories.get(category), fieldNumber, isoMessage);
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Corpus truncated at offset " + (position + buffer.position()));
+            }
+        }
+        return buffer.flip();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            corpus.close();
+        } finally {
+            index.close();
+        }
+    }
+
+    /**
+     * A read-only mapping of part of a file that is moved forward as reads pass its end
+     */
+    private static final class Window {
+        private final FileChannel channel;
+        private MappedByteBuffer buffer;
+        private long start;
+
+        Window(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * @return a buffer positioned at the offset with at least length bytes remaining
+         */
+        ByteBuffer at(long offset, int length) throws IOException {
+            if (buffer == null || offset < start || offset + length > start + buffer.capacity()) {
+                long size = Math.max(length, Math.min(WINDOW_SIZE, channel.size() - offset));
+                if (offset + size > channel.size()) {
+                    throw new IOException("Corpus truncated at offset " + offset);
+                }
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+                start = offset;
+            }
+            return buffer.duplicate().position((int) (offset - start));
+        }
+    }
+}
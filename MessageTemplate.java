@@ -0,0 +1,276 @@
+package utilities;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * An encoded base message plus the offset of every field in it, for building field mutations.
+ * Replacing or adding a field copies the bytes around it, writes the new length indicator and value and,
+ * for a field the base did not carry, patches its bit in the bitmap. The rest of the message is never
+ * re-encoded, so a mutation costs about as much as the fields it changes.
+ * <p>
+ * Mutations the template cannot splice (a secondary field on a base without a secondary bitmap, or a base
+ * without any bitmap) fall back to a full build from a copy of the base builder. Templates are immutable and
+ * can be shared between threads.
+ */
+public final class MessageTemplate {
+    private final IsoMessageBuilder base;
+    private final byte[] message;
+    private final int mtiEnd;
+    private final int primaryBitmapOffset;
+    private final int secondaryBitmapOffset;
+    private final long primaryBitmap;
+    private final long secondaryBitmap;
+    // Encoded [start, end) of each data element including its length indicator; start is -1 when absent
+    private final int[] starts = new int[FieldSchema.MAX_FIELD + 1];
+    private final int[] ends = new int[FieldSchema.MAX_FIELD + 1];
+
+    private MessageTemplate(IsoMessageBuilder base) {
+        this.base = base;
+        this.message = base.buildIsoMessageBytes();
+        this.primaryBitmap = base.getPrimaryBitmap();
+        this.secondaryBitmap = base.getSecondaryBitmap();
+
+        // Walk the fields in the same order IsoMessageBuilder.encode() writes them
+        SortedMap<Integer, String> fields = base.snapshot();
+        String mti = fields.get(FieldSchema.MTI);
+        int position = utf8Length(mti != null ? mti : "0100");
+        mtiEnd = position;
+
+        boolean hasSecondary = secondaryBitmap != 0;
+        boolean hasPrimary = hasSecondary || (primaryBitmap & ~IsoBitmap.SECONDARY_BITMAP_FLAG) != 0;
+        primaryBitmapOffset = hasPrimary ? position : -1;
+        position += hasPrimary ? 16 : 0;
+        secondaryBitmapOffset = hasSecondary ? position : -1;
+        position += hasSecondary ? 16 : 0;
+
+        Arrays.fill(starts, -1);
+        for (Map.Entry<Integer, String> entry : fields.entrySet()) {
+            int field = entry.getKey();
+            if (field == FieldSchema.MTI) continue;
+            FieldSpec spec = base.getSchema().field(field);
+            if (spec == null) continue;
+
+            starts[field] = position;
+            position += encodedLength(spec, entry.getValue());
+            ends[field] = position;
+        }
+    }
+
+    /**
+     * Captures the builder's current message. The builder is copied, so it can be changed afterwards.
+     * @param builder the builder holding the valid base message
+     * @return the template
+     */
+    public static MessageTemplate of(IsoMessageBuilder builder) {
+        return new MessageTemplate(builder.copy());
+    }
+
+    /**
+     * @return the base message as a string
+     */
+    public String baseMessage() {
+        return new String(message, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return a copy of the encoded base message
+     */
+    public byte[] baseBytes() {
+        return message.clone();
+    }
+
+    /**
+     * @param fieldNumber the data element (2-128)
+     * @return the offset of the field's length indicator or value in the base message, or -1 if absent
+     */
+    public int offsetOf(int fieldNumber) {
+        return fieldNumber >= 2 && fieldNumber <= FieldSchema.MAX_FIELD ? starts[fieldNumber] : -1;
+    }
+
+    /**
+     * @param fieldNumber the data element (2-128)
+     * @return the encoded length of the field including its length indicator, or 0 if absent
+     */
+    public int encodedLengthOf(int fieldNumber) {
+        int start = offsetOf(fieldNumber);
+        return start < 0 ? 0 : ends[fieldNumber] - start;
+    }
+
+    /**
+     * Builds the base message with one field replaced or added
+     * @param spec the field to change (MTI or a data element)
+     * @param value the raw value, without length indicator
+     * @return the mutated message
+     */
+    public String withField(FieldSpec spec, String value) {
+        IsoMessageEncoder encoder = new IsoMessageEncoder(message.length + utf8Length(value) + 3);
+        return splice(spec, value, encoder).toString();
+    }
+
+    /**
+     * Writes the base message with one field replaced or added into an encoder, which is reset first
+     * @param spec the field to change (MTI or a data element)
+     * @param value the raw value, without length indicator
+     * @param encoder the encoder to write into
+     * @return the encoder
+     */
+    public IsoMessageEncoder splice(FieldSpec spec, String value, IsoMessageEncoder encoder) {
+        encoder.reset();
+        if (spec.isMti()) {
+            encoder.writeText(value);
+            return encoder.writeBytes(message, mtiEnd, message.length - mtiEnd);
+        }
+        if (!spec.isDataElement() || !canSplice(spec.number)) {
+            return rebuild(spec, value, encoder);
+        }
+
+        int field = spec.number;
+        int start = starts[field];
+        int end;
+        if (start >= 0) {
+            end = ends[field];
+        } else {
+            // Not in the base: insert before the next field that is
+            start = message.length;
+            for (int next = field + 1; next <= FieldSchema.MAX_FIELD; next++) {
+                if (starts[next] >= 0) {
+                    start = starts[next];
+                    break;
+                }
+            }
+            end = start;
+        }
+
+        encoder.writeBytes(message, 0, start);
+        if (spec.format.isVariable()) {
+            encoder.writeLength(value.length(), spec.format.lengthIndicatorSize);
+        }
+        encoder.writeText(value);
+        encoder.writeBytes(message, end, message.length - end);
+
+        if (starts[field] < 0) {
+            // Bitmaps come before every field, so their offsets are unaffected by the insert
+            if (field <= 64) {
+                IsoBitmap.writeHex(IsoBitmap.set(primaryBitmap, field), encoder.array(), primaryBitmapOffset);
+            } else {
+                IsoBitmap.writeHex(IsoBitmap.set(secondaryBitmap, field - 64), encoder.array(), secondaryBitmapOffset);
+            }
+        }
+        return encoder;
+    }
+
+    /**
+     * Writes the base message with several fields replaced or added into an encoder, which is reset first.
+     * Each field is spliced like {@link #splice(FieldSpec, String, IsoMessageEncoder)}; the bitmaps are
+     * patched once for every field the base did not carry.
+     * @param specs the fields to change (MTI or data elements), in ascending field number order
+     * @param values the raw values, without length indicators, in the same order
+     * @param encoder the encoder to write into
+     * @return the encoder
+     */
+    public IsoMessageEncoder splice(FieldSpec[] specs, String[] values, IsoMessageEncoder encoder) {
+        for (int i = 0; i < specs.length; i++) {
+            if (!specs[i].isMti() && (!specs[i].isDataElement() || !canSplice(specs[i].number))) {
+                return rebuild(specs, values, encoder);
+            }
+            if (i > 0 && specs[i].number <= specs[i - 1].number) {
+                throw new IllegalArgumentException("Fields must be distinct and in ascending order: "
+                        + specs[i - 1].key + " before " + specs[i].key);
+            }
+        }
+
+        encoder.reset();
+        int position = 0;
+        int first = 0;
+        if (specs.length > 0 && specs[0].isMti()) {
+            encoder.writeText(values[0]);
+            position = mtiEnd;
+            first = 1;
+        }
+        // A replaced MTI of another length moves everything after it, bitmaps included
+        int shift = encoder.length() - position;
+        long primary = primaryBitmap;
+        long secondary = secondaryBitmap;
+
+        for (int i = first; i < specs.length; i++) {
+            FieldSpec spec = specs[i];
+            int field = spec.number;
+            int start = starts[field];
+            int end;
+            if (start >= 0) {
+                end = ends[field];
+            } else {
+                start = message.length;
+                for (int next = field + 1; next <= FieldSchema.MAX_FIELD; next++) {
+                    if (starts[next] >= 0) {
+                        start = starts[next];
+                        break;
+                    }
+                }
+                end = start;
+                if (field <= 64) {
+                    primary = IsoBitmap.set(primary, field);
+                } else {
+                    secondary = IsoBitmap.set(secondary, field - 64);
+                }
+            }
+
+            encoder.writeBytes(message, position, start - position);
+            if (spec.format.isVariable()) {
+                encoder.writeLength(values[i].length(), spec.format.lengthIndicatorSize);
+            }
+            encoder.writeText(values[i]);
+            position = end;
+        }
+        encoder.writeBytes(message, position, message.length - position);
+
+        if (primary != primaryBitmap) {
+            IsoBitmap.writeHex(primary, encoder.array(), primaryBitmapOffset + shift);
+        }
+        if (secondary != secondaryBitmap) {
+            IsoBitmap.writeHex(secondary, encoder.array(), secondaryBitmapOffset + shift);
+        }
+        return encoder;
+    }
+
+    private boolean canSplice(int field) {
+        if (starts[field] >= 0) {
+            return true;
+        }
+        return field <= 64 ? primaryBitmapOffset >= 0 : secondaryBitmapOffset >= 0;
+    }
+
+    private IsoMessageEncoder rebuild(FieldSpec spec, String value, IsoMessageEncoder encoder) {
+        byte[] rebuilt = base.copy().setField(spec, value).buildIsoMessageBytes();
+        return encoder.writeBytes(rebuilt);
+    }
+
+    private IsoMessageEncoder rebuild(FieldSpec[] specs, String[] values, IsoMessageEncoder encoder) {
+        IsoMessageBuilder builder = base.copy();
+        for (int i = 0; i < specs.length; i++) {
+            builder.setField(specs[i], values[i]);
+        }
+        return encoder.reset().writeBytes(builder.buildIsoMessageBytes());
+    }
+
+    private static int encodedLength(FieldSpec spec, String value) {
+        int length = utf8Length(value);
+        if (spec.format.isVariable()) {
+            // Matches IsoMessageEncoder.writeLength, which prints every digit when the length overflows
+            length += Math.max(spec.format.lengthIndicatorSize, String.valueOf(value.length()).length());
+        }
+        return length;
+    }
+
+    private static int utf8Length(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) {
+                return value.getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+        return value.length();
+    }
+}
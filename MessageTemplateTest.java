@@ -0,0 +1,101 @@
+package utilities;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class MessageTemplateTest {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private FieldSchema schema;
+
+    @BeforeAll
+    void setup() throws IOException {
+        String configJson = Files.readString(Path.of("iso_config_extended_flattened.json"));
+        schema = FieldSchema.compile(objectMapper.readTree(configJson));
+    }
+
+    private IsoMessageBuilder baseBuilder() {
+        return new IsoMessageBuilder(schema)
+                .setField(schema.byKey("MTI"), "0200")
+                .setField(schema.byKey("2"), "5314451120000000")
+                .setField(schema.byKey("4"), "000000020000")
+                .setField(schema.byKey("48"), "13ABC1235MAX025")
+                .setField(schema.byKey("67"), "01");
+    }
+
+    @Test
+    void testSplicesMatchFullBuild() {
+        IsoMessageBuilder base = baseBuilder();
+        MessageTemplate template = MessageTemplate.of(base);
+        assert template.baseMessage().equals(base.buildIsoMessage()) : "Template should hold the base message";
+
+        // Replace present fields (fixed, llvar, lllvar, secondary), add absent ones, change the MTI
+        assertSpliceMatches(base, template, "2", "");
+        assertSpliceMatches(base, template, "2", "1".repeat(150));
+        assertSpliceMatches(base, template, "4", "ABC");
+        assertSpliceMatches(base, template, "48", "é€ value");
+        assertSpliceMatches(base, template, "67", "9");
+        assertSpliceMatches(base, template, "3", "000000");
+        assertSpliceMatches(base, template, "90", "0100123456");
+        assertSpliceMatches(base, template, "128", schema.byKey("128").sampleData);
+        assertSpliceMatches(base, template, "MTI", "0100");
+    }
+
+    @Test
+    void testMultiFieldSplicesMatchFullBuild() {
+        IsoMessageBuilder base = baseBuilder();
+        MessageTemplate template = MessageTemplate.of(base);
+
+        // Replaced and added fields on both bitmaps, with an MTI of another length in front
+        String[] keys = {"MTI", "3", "48", "90"};
+        String[] values = {"02000", "000000", "X".repeat(30), "0100123456"};
+        FieldSpec[] specs = new FieldSpec[keys.length];
+        IsoMessageBuilder expected = base.copy();
+        for (int i = 0; i < keys.length; i++) {
+            specs[i] = schema.byKey(keys[i]);
+            expected.setField(specs[i], values[i]);
+        }
+        String actual = template.splice(specs, values, new IsoMessageEncoder()).toString();
+        assert expected.buildIsoMessage().equals(actual) : "Multi-field splice differs:\n" + expected.buildIsoMessage() + "\n" + actual;
+
+        FieldSpec[] unordered = {schema.byKey("48"), schema.byKey("2")};
+        try {
+            template.splice(unordered, new String[]{"A", "1"}, new IsoMessageEncoder());
+            assert false : "Fields out of order should be refused";
+        } catch (IllegalArgumentException refused) {
+            assert refused.getMessage().contains("ascending order") : "Unexpected error: " + refused.getMessage();
+        }
+    }
+
+    @Test
+    void testFallsBackWithoutSecondaryBitmap() {
+        IsoMessageBuilder primaryOnly = new IsoMessageBuilder(schema).setField(schema.byKey("3"), "000000");
+        MessageTemplate template = MessageTemplate.of(primaryOnly);
+        assertSpliceMatches(primaryOnly, template, "90", "0100123456");
+
+        IsoMessageBuilder empty = new IsoMessageBuilder(schema);
+        assertSpliceMatches(empty, MessageTemplate.of(empty), "3", "000000");
+    }
+
+    @Test
+    void testOffsets() {
+        MessageTemplate template = MessageTemplate.of(baseBuilder());
+        String message = template.baseMessage();
+        int offset = template.offsetOf(48);
+        assert message.startsWith("015" + "13ABC1235MAX025", offset) : "Offset should point at the length indicator";
+        assert template.encodedLengthOf(48) == 18 : "Encoded length should include the indicator";
+        assert template.offsetOf(3) == -1 && template.encodedLengthOf(3) == 0 : "Absent fields have no offset";
+    }
+
+    private void assertSpliceMatches(IsoMessageBuilder base, MessageTemplate template, String key, String value) {
+        String expected = base.copy().setField(schema.byKey(key), value).buildIsoMessage();
+        String actual = template.withField(schema.byKey(key), value);
+        assert expected.equals(actual) : "Splice of field " + key + " differs:\n" + expected + "\n" + actual;
+    }
+}
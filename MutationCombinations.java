@@ -0,0 +1,198 @@
+package utilities;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * The fields x TEST_CATEGORIES matrix for messages that carry several invalid fields at once.
+ * With strength t, every choice of t distinct fields is combined with every choice of one invalid category
+ * per field, so every t-way interaction of invalid values appears in exactly one message: t = 2 gives
+ * pairwise coverage, higher strengths n-wise coverage.
+ * <p>
+ * Combinations are enumerated lazily, fields in lexicographic order and categories as a mixed-radix counter
+ * within each choice of fields, so only the current combination is held in memory. {@link #count()} gives
+ * the size of the matrix without enumerating it.
+ */
+public final class MutationCombinations implements Iterable<MutationCombinations.Combination> {
+    private final FieldSpec[] fields;
+    private final String[][] categories;
+    private final int strength;
+
+    /**
+     * One message's worth of invalid values
+     */
+    public static final class Combination {
+        /** The fields, in ascending field number order */
+        public final FieldSpec[] fields;
+        /** The invalid_*_value attribute applied to each field */
+        public final String[] categories;
+
+        Combination(FieldSpec[] fields, String[] categories) {
+            this.fields = fields;
+            this.categories = categories;
+        }
+
+        /**
+         * @return the field keys joined with "+", e.g. "48+65"
+         */
+        public String fieldId() {
+            StringBuilder id = new StringBuilder();
+            for (FieldSpec field : fields) {
+                if (id.length() > 0) id.append('+');
+                id.append(field.key);
+            }
+            return id.toString();
+        }
+
+        /**
+         * @return the categories joined with "+", in field order
+         */
+        public String testCategory() {
+            return String.join("+", categories);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < fields.length; i++) {
+                if (i > 0) text.append(" + ");
+                text.append(fields[i].key).append('=').append(categories[i]);
+            }
+            return text.toString();
+        }
+    }
+
+    /**
+     * @param specs the fields to combine; only data elements and the MTI with at least one of the
+     * categories are used
+     * @param testCategories the invalid categories to draw from, e.g. CreateIsoMessage.TEST_CATEGORIES
+     * @param strength the number of invalid fields per message, at least 2
+     */
+    public MutationCombinations(List<FieldSpec> specs, List<String> testCategories, int strength) {
+        if (strength < 2) {
+            throw new IllegalArgumentException("Strength must be at least 2 but was " + strength);
+        }
+        List<FieldSpec> usable = new ArrayList<>();
+        for (FieldSpec spec : specs) {
+            if ((spec.isMti() || spec.isDataElement()) && !categoriesOf(spec, testCategories).isEmpty()) {
+                usable.add(spec);
+            }
+        }
+        // Splicing needs the fields of a message in message order
+        usable.sort(Comparator.comparingInt(spec -> spec.number));
+        this.fields = usable.toArray(new FieldSpec[0]);
+        this.categories = new String[fields.length][];
+        for (int i = 0; i < fields.length; i++) {
+            categories[i] = categoriesOf(fields[i], testCategories).toArray(new String[0]);
+        }
+        this.strength = strength;
+    }
+
+    private static List<String> categoriesOf(FieldSpec spec, List<String> testCategories) {
+        List<String> present = new ArrayList<>();
+        for (String testCategory : testCategories) {
+            if (spec.hasInvalidValue(testCategory)) {
+                present.add(testCategory);
+            }
+        }
+        return present;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    /**
+     * @return the fields that take part, in ascending field number order
+     */
+    public List<FieldSpec> getFields() {
+        return List.of(fields);
+    }
+
+    /**
+     * Counts the combinations: the sum over every choice of t fields of the product of their category
+     * counts, computed field by field in O(fields x t)
+     * @return the number of combinations, or Long.MAX_VALUE if it does not fit in a long
+     */
+    public long count() {
+        // ways[j] is the number of combinations of j fields among the fields seen so far
+        long[] ways = new long[strength + 1];
+        ways[0] = 1;
+        for (String[] fieldCategories : categories) {
+            for (int j = strength; j >= 1; j--) {
+                ways[j] = saturatedAdd(ways[j], saturatedMultiply(ways[j - 1], fieldCategories.length));
+            }
+        }
+        return ways[strength];
+    }
+
+    private static long saturatedAdd(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    private static long saturatedMultiply(long a, long b) {
+        return b != 0 && a > Long.MAX_VALUE / b ? Long.MAX_VALUE : a * b;
+    }
+
+    @Override
+    public Iterator<Combination> iterator() {
+        return new Iterator<>() {
+            // Indexes of the chosen fields and of each field's category; fieldIndexes is null once exhausted
+            private int[] fieldIndexes = fields.length >= strength ? firstChoice() : null;
+            private final int[] categoryIndexes = new int[strength];
+
+            @Override
+            public boolean hasNext() {
+                return fieldIndexes != null;
+            }
+
+            @Override
+            public Combination next() {
+                if (fieldIndexes == null) {
+                    throw new NoSuchElementException();
+                }
+                FieldSpec[] chosen = new FieldSpec[strength];
+                String[] chosenCategories = new String[strength];
+                for (int i = 0; i < strength; i++) {
+                    chosen[i] = fields[fieldIndexes[i]];
+                    chosenCategories[i] = categories[fieldIndexes[i]][categoryIndexes[i]];
+                }
+                advance();
+                return new Combination(chosen, chosenCategories);
+            }
+
+            private int[] firstChoice() {
+                int[] first = new int[strength];
+                for (int i = 0; i < strength; i++) {
+                    first[i] = i;
+                }
+                return first;
+            }
+
+            private void advance() {
+                // Next category tuple for the same fields, last position fastest
+                for (int i = strength - 1; i >= 0; i--) {
+                    if (++categoryIndexes[i] < categories[fieldIndexes[i]].length) {
+                        return;
+                    }
+                    categoryIndexes[i] = 0;
+                }
+                // Next choice of fields in lexicographic order
+                for (int i = strength - 1; i >= 0; i--) {
+                    if (fieldIndexes[i] < fields.length - strength + i) {
+                        fieldIndexes[i]++;
+                        for (int j = i + 1; j < strength; j++) {
+                            fieldIndexes[j] = fieldIndexes[j - 1] + 1;
+                        }
+                        return;
+                    }
+                }
+                fieldIndexes = null;
+            }
+        };
+    }
+}
@@ -0,0 +1,82 @@
+package utilities;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import utilities.MutationCombinations.Combination;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class MutationCombinationsTest {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private FieldSchema schema;
+
+    @BeforeAll
+    void setup() throws IOException {
+        String configJson = Files.readString(Path.of("iso_config_extended_flattened.json"));
+        schema = FieldSchema.compile(objectMapper.readTree(configJson));
+    }
+
+    @Test
+    void testEnumeratesEveryPairOnce() {
+        List<FieldSpec> specs = List.of(schema.byKey("48"), schema.byKey("2"), schema.byKey("4"), schema.byKey("90"));
+        MutationCombinations pairs = new MutationCombinations(specs, CreateIsoMessage.TEST_CATEGORIES, 2);
+
+        // Brute force: every two distinct fields times every category of each
+        List<FieldSpec> fields = pairs.getFields();
+        long expected = 0;
+        for (int i = 0; i < fields.size(); i++) {
+            for (int j = i + 1; j < fields.size(); j++) {
+                expected += (long) categoryCount(fields.get(i)) * categoryCount(fields.get(j));
+            }
+        }
+
+        Set<String> seen = new HashSet<>();
+        for (Combination combination : pairs) {
+            assert combination.fields.length == 2 : "Every combination should carry two fields";
+            assert combination.fields[0].number < combination.fields[1].number : "Fields should be in message order: " + combination;
+            assert combination.fields[0].hasInvalidValue(combination.categories[0]) : "Category should apply to its field: " + combination;
+            assert seen.add(combination.toString()) : "Combination repeated: " + combination;
+        }
+        assert expected > 0 && seen.size() == expected : "Expected " + expected + " pairs but got " + seen.size();
+        assert pairs.count() == expected : "count() should match the enumeration, got " + pairs.count();
+    }
+
+    @Test
+    void testLargeMatricesAreLazy() {
+        MutationCombinations triples = new MutationCombinations(schema.all(), CreateIsoMessage.TEST_CATEGORIES, 3);
+        assert triples.count() > 1_000_000 : "Every field at strength 3 should give millions of combinations, got " + triples.count();
+
+        Iterator<Combination> iterator = triples.iterator();
+        Combination first = iterator.next();
+        Combination second = iterator.next();
+        assert first.fieldId().equals(second.fieldId()) : "Categories should vary before fields";
+        assert !first.testCategory().equals(second.testCategory()) : "Consecutive combinations should differ";
+    }
+
+    @Test
+    void testRejectsSingleFieldStrength() {
+        try {
+            new MutationCombinations(schema.all(), CreateIsoMessage.TEST_CATEGORIES, 1);
+            assert false : "Strength 1 should be refused";
+        } catch (IllegalArgumentException refused) {
+            assert refused.getMessage().contains("at least 2") : "Unexpected error: " + refused.getMessage();
+        }
+    }
+
+    private static int categoryCount(FieldSpec spec) {
+        int count = 0;
+        for (String testCategory : CreateIsoMessage.TEST_CATEGORIES) {
+            if (spec.hasInvalidValue(testCategory)) count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,78 @@
+package utilities;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class ParserBatchTest {
+    private ParserStubServer stub;
+    private HttpClientTransport transport;
+
+    @BeforeAll
+    void setup() throws IOException {
+        // Accept messages starting with 0100, reject everything else
+        stub = new ParserStubServer(isoMessage -> isoMessage.startsWith("0100")
+                ? new ParserResponse(200, "[{\"dataElementId\":\"0\",\"value\":\"" + isoMessage + "\"}]")
+                : new ParserResponse(400, "{\"message\":\"Invalid MTI in " + isoMessage + "\"}")).start();
+        transport = new HttpClientTransport(stub.getUrl());
+    }
+
+    @AfterAll
+    void tearDown() {
+        stub.close();
+    }
+
+    @Test
+    void testBatchResponsesAreDemultiplexedInOrder() throws IOException {
+        List<String> isoMessages = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            isoMessages.add((i % 3 == 0 ? "9999" : "0100") + "MSG" + i);
+        }
+
+        for (BatchCodec.Framing framing : BatchCodec.Framing.values()) {
+            List<ParserResponse> responses = transport.sendBatch(isoMessages, framing);
+            assert responses.size() == isoMessages.size() : "Expected one response per message with " + framing;
+            for (int i = 0; i < isoMessages.size(); i++) {
+                ParserResponse single = transport.send(isoMessages.get(i));
+                assert responses.get(i).statusCode == single.statusCode : "Status mismatch for message " + i + " with " + framing;
+                assert responses.get(i).body.equals(single.body) : "Body mismatch for message " + i + " with " + framing;
+            }
+        }
+    }
+
+    @Test
+    void testJsonArrayFramingKeepsLineBreaks() throws IOException {
+        List<String> isoMessages = List.of("0100A\nB", "0200C");
+        String body = BatchCodec.encodeRequest(isoMessages, BatchCodec.Framing.JSON_ARRAY);
+        assert BatchCodec.decodeRequest(body, BatchCodec.Framing.JSON_ARRAY).equals(isoMessages) :
+            "JSON array framing should round-trip messages containing line breaks";
+    }
+
+    @Test
+    void testNewlineFramingKeepsEmptyMessages() throws IOException {
+        List<String> isoMessages = List.of("0100A", "", "0200C", "");
+        String body = BatchCodec.encodeRequest(isoMessages, BatchCodec.Framing.NEWLINE_DELIMITED);
+        assert BatchCodec.decodeRequest(body, BatchCodec.Framing.NEWLINE_DELIMITED).equals(isoMessages) :
+            "Newline framing should keep empty messages";
+        assert BatchCodec.decodeRequest("", BatchCodec.Framing.NEWLINE_DELIMITED).isEmpty() : "An empty body holds no messages";
+    }
+
+    @Test
+    void testMalformedResponseEntriesAreRejected() {
+        for (String body : List.of("[{\"status\":200,\"body\":\"ok\"}]", "[{\"index\":0,\"body\":\"ok\"}]",
+                "[{\"index\":0,\"status\":200}]", "[{\"index\":\"0\",\"status\":200,\"body\":\"ok\"}]", "[\"ok\"]")) {
+            try {
+                BatchCodec.decodeResponse(body, BatchCodec.Framing.JSON_ARRAY, 1);
+                assert false : "Malformed entry should be rejected: " + body;
+            } catch (IOException expected) {
+                assert expected.getMessage().contains("Batch response entry") : "Unexpected error: " + expected.getMessage();
+            }
+        }
+    }
+}
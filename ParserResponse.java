@@ -0,0 +1,154 @@
+package utilities;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A response from the parser service.
+ * The body is parsed at most once, on first access to the error message or fields, in a single streaming
+ * pass: a JSON array yields the dataElementId to value map, a JSON object its "message" or "error" text.
+ */
+public class ParserResponse {
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    public final int statusCode;
+    public final String body;
+    private volatile Parsed parsed;
+
+    public ParserResponse(int statusCode, String body) {
+        this.statusCode = statusCode;
+        this.body = body == null ? "" : body;
+    }
+
+    /**
+     * What one pass over the body found
+     */
+    private static final class Parsed {
+        final String errorMessage;
+        final Map<String, String> fields;
+
+        Parsed(String errorMessage, Map<String, String> fields) {
+            this.errorMessage = errorMessage;
+            this.fields = fields;
+        }
+    }
+
+    /**
+     * @return true if the parser rejected the message: any 4xx or 5xx status, or a body carrying
+     * "message" or "error"
+     */
+    public boolean isError() {
+        return statusCode >= 400 || parsed().errorMessage != null;
+    }
+
+    /**
+     * @return the parser's "message" or "error" text, the raw body for error statuses without either,
+     * or null if the message was accepted
+     */
+    public String getErrorMessage() {
+        String message = parsed().errorMessage;
+        if (message == null && statusCode >= 400) {
+            return body;
+        }
+        return message;
+    }
+
+    /**
+     * @param dataElementId the data element id as reported by the parser, e.g. "1" or "48"
+     * @return true if the parser returned the data element
+     */
+    public boolean hasField(String dataElementId) {
+        return parsed().fields.containsKey(dataElementId);
+    }
+
+    /**
+     * @param dataElementId the data element id as reported by the parser
+     * @return the value the parser decoded, or null if the data element is not in the response
+     */
+    public String getFieldValue(String dataElementId) {
+        return parsed().fields.get(dataElementId);
+    }
+
+    /**
+     * @return every returned data element in response order, keyed by dataElementId
+     */
+    public Map<String, String> getFields() {
+        return parsed().fields;
+    }
+
+    private Parsed parsed() {
+        Parsed result = parsed;
+        if (result == null) {
+            // Parsing is idempotent, so a race only costs a duplicate pass
+            result = parse(body);
+            parsed = result;
+        }
+        return result;
+    }
+
+    private static Parsed parse(String body) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        String message = null;
+        String error = null;
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    String dataElementId = null;
+                    String value = null;
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String name = parser.getCurrentName();
+                        JsonToken valueToken = parser.nextToken();
+                        if (name.equals("dataElementId")) {
+                            dataElementId = scalarText(parser, valueToken);
+                        } else if (name.equals("value")) {
+                            value = scalarText(parser, valueToken);
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    if (dataElementId != null) {
+                        fields.put(dataElementId, value);
+                    }
+                }
+            } else if (token == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.getCurrentName();
+                    JsonToken valueToken = parser.nextToken();
+                    if (name.equals("message")) {
+                        message = scalarText(parser, valueToken);
+                    } else if (name.equals("error")) {
+                        error = scalarText(parser, valueToken);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // Not JSON, or truncated; keep whatever was read before the problem
+        }
+        return new Parsed(message != null ? message : error, Collections.unmodifiableMap(fields));
+    }
+
+    /**
+     * @return the text of a scalar value, or "" for objects and arrays (which are skipped)
+     */
+    private static String scalarText(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return "";
+        }
+        return token == JsonToken.VALUE_NULL ? "null" : parser.getText();
+    }
+
+    @Override
+    public String toString() {
+        return statusCode + " " + body;
+    }
+}
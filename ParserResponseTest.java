@@ -0,0 +1,50 @@
+package utilities;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class ParserResponseTest {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testSuccessResponseFields() throws IOException {
+        String body = Files.readString(Path.of("messageResponse.json"));
+        ParserResponse response = new ParserResponse(200, body);
+
+        assert !response.isError() : "Array response should not be an error";
+        assert response.getErrorMessage() == null : "Accepted message should have no error message";
+
+        JsonNode expected = objectMapper.readTree(body);
+        assert response.getFields().size() == expected.size() : "Every data element should be mapped";
+        for (JsonNode element : expected) {
+            String id = element.get("dataElementId").asText();
+            assert response.hasField(id) : "Missing data element " + id;
+            assert response.getFieldValue(id).equals(element.get("value").asText()) : "Value mismatch for " + id;
+        }
+        assert !response.hasField("129") : "Unknown data element should not be reported";
+    }
+
+    @Test
+    void testErrorResponses() {
+        ParserResponse message = new ParserResponse(400, "{\"message\":\"Field 3: bad\",\"error\":\"Bad Request\"}");
+        assert message.isError() && message.getErrorMessage().equals("Field 3: bad") : "message should win over error";
+        assert CreateIsoMessage.toResponseString(message).equals("Error: Field 3: bad") : "String form should keep the Error prefix";
+
+        ParserResponse error = new ParserResponse(500, "{\"error\":\"Internal\",\"details\":{\"trace\":[1,2]}}");
+        assert error.getErrorMessage().equals("Internal") : "error should be used when message is absent";
+
+        ParserResponse raw = new ParserResponse(502, "Bad Gateway");
+        assert raw.isError() && raw.getErrorMessage().equals("Bad Gateway") : "Non-JSON error bodies should be returned raw";
+        assert raw.getFields().isEmpty() : "Non-JSON bodies have no fields";
+
+        ParserResponse okWithError = new ParserResponse(200, "{\"error\":\"Unsupported MTI\"}");
+        assert okWithError.isError() : "An error body should count as an error whatever the status";
+    }
+}
@@ -0,0 +1,229 @@
+package utilities;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Local stand-in for the parser service, built on the JDK HTTP server.
+ * Single messages are POSTed to {@link #getUrl()}; batches framed by {@link BatchCodec} go to the same URL
+ * with "/batch" appended. Every message is answered by the supplied handler, or by an
+ * {@link IsoMessageDecoder} when created with {@link #forSchema(FieldSchema)}.
+ * <p>
+ * Artificial latency is added once per HTTP request and injected errors replace individual message
+ * responses with {"error": ...}, so client throughput and error handling can be exercised in isolation.
+ */
+public class ParserStubServer implements AutoCloseable {
+    public static final String LATENCY_PROPERTY = "iso.parser.stub.latencyMs";
+    public static final String JITTER_PROPERTY = "iso.parser.stub.jitterMs";
+    public static final String ERROR_RATE_PROPERTY = "iso.parser.stub.errorRate";
+    public static final String ERROR_STATUS_PROPERTY = "iso.parser.stub.errorStatus";
+    private static final String CONTEXT_PATH = "/parse";
+
+    private final Function<String, ParserResponse> handler;
+    private volatile long latencyMillis;
+    private volatile long jitterMillis;
+    private volatile double errorRate;
+    private volatile int errorStatus = 500;
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong messageCount = new AtomicLong();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * @param handler produces the response for a single ISO8583 message
+     */
+    public ParserStubServer(Function<String, ParserResponse> handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Creates a stub that answers like the parser service: 200 with the dataElementId array for valid
+     * messages, 400 with a message naming the failing fields otherwise
+     * @param schema the schema messages are decoded with
+     * @return the stub, not yet started
+     */
+    public static ParserStubServer forSchema(FieldSchema schema) {
+        IsoMessageDecoder decoder = new IsoMessageDecoder(schema);
+        return new ParserStubServer(isoMessage -> decoder.decode(isoMessage).toParserResponse());
+    }
+
+    /**
+     * Delays every request by a fixed time plus a random jitter
+     * @param latencyMillis fixed delay in milliseconds
+     * @param jitterMillis maximum additional random delay in milliseconds
+     * @return this server
+     */
+    public ParserStubServer withLatency(long latencyMillis, long jitterMillis) {
+        this.latencyMillis = Math.max(0, latencyMillis);
+        this.jitterMillis = Math.max(0, jitterMillis);
+        return this;
+    }
+
+    /**
+     * Fails a random fraction of messages regardless of their content
+     * @param errorRate probability between 0 and 1 that a message is failed
+     * @param errorStatus the status returned for failed messages, e.g. 500 or 503
+     * @return this server
+     */
+    public ParserStubServer withErrorInjection(double errorRate, int errorStatus) {
+        this.errorRate = Math.min(1, Math.max(0, errorRate));
+        this.errorStatus = errorStatus;
+        return this;
+    }
+
+    /**
+     * Applies latency and error injection from -Diso.parser.stub.latencyMs, -Diso.parser.stub.jitterMs,
+     * -Diso.parser.stub.errorRate and -Diso.parser.stub.errorStatus
+     * @return this server
+     */
+    public ParserStubServer withSystemProperties() {
+        withLatency(Long.getLong(LATENCY_PROPERTY, latencyMillis), Long.getLong(JITTER_PROPERTY, jitterMillis));
+        String rate = System.getProperty(ERROR_RATE_PROPERTY);
+        return withErrorInjection(rate != null ? Double.parseDouble(rate) : errorRate,
+                Integer.getInteger(ERROR_STATUS_PROPERTY, errorStatus));
+    }
+
+    /**
+     * Starts the server on an ephemeral port on the loopback interface
+     * @return this server
+     */
+    public ParserStubServer start() throws IOException {
+        return start(0);
+    }
+
+    /**
+     * Starts the server on the loopback interface
+     * @param port the port to bind, or 0 for an ephemeral port
+     * @return this server
+     */
+    public ParserStubServer start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        server.createContext(CONTEXT_PATH, this::handleSingle);
+        server.createContext(CONTEXT_PATH + "/batch", this::handleBatch);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.start();
+        return this;
+    }
+
+    /**
+     * @return the URL to use as the parser URL
+     */
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + CONTEXT_PATH;
+    }
+
+    /**
+     * @return the number of HTTP requests answered, single and batch
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * @return the number of ISO8583 messages answered
+     */
+    public long getMessageCount() {
+        return messageCount.get();
+    }
+
+    private void handleSingle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String isoMessage = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            requestCount.incrementAndGet();
+            delay();
+            ParserResponse response = respond(isoMessage);
+            write(exchange, response.statusCode, "application/json", response.body);
+        }
+    }
+
+    private void handleBatch(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            BatchCodec.Framing framing = BatchCodec.Framing.fromContentType(
+                    exchange.getRequestHeaders().getFirst("Content-Type"));
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            requestCount.incrementAndGet();
+            delay();
+
+            List<ParserResponse> responses = new ArrayList<>();
+            for (String isoMessage : BatchCodec.decodeRequest(body, framing)) {
+                responses.add(respond(isoMessage));
+            }
+            write(exchange, 200, framing.contentType, BatchCodec.encodeResponse(responses, framing));
+        }
+    }
+
+    private ParserResponse respond(String isoMessage) {
+        messageCount.incrementAndGet();
+        double rate = errorRate;
+        if (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate) {
+            return new ParserResponse(errorStatus, "{\"error\":\"Injected failure\"}");
+        }
+        return handler.apply(isoMessage);
+    }
+
+    private void delay() throws IOException {
+        long millis = latencyMillis;
+        long jitter = jitterMillis;
+        if (jitter > 0) {
+            millis += ThreadLocalRandom.current().nextLong(jitter + 1);
+        }
+        if (millis > 0) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while delaying the response", e);
+            }
+        }
+    }
+
+    private static void write(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+        }
+    }
+
+    /**
+     * Runs the stub as a standalone parser for CI or manual runs until the process is stopped.
+     * Latency and error injection are taken from the -Diso.parser.stub.* system properties.
+     * @param args [port] [config file], defaulting to 8080 and iso_config_extended_flattened.json
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        Path config = Path.of(args.length > 1 ? args[1] : "iso_config_extended_flattened.json");
+        FieldSchema schema = FieldSchema.compile(new ObjectMapper().readTree(Files.readString(config)));
+
+        ParserStubServer stub = forSchema(schema).withSystemProperties().start(port);
+        System.out.println("Parser stub listening on " + stub.getUrl());
+    }
+}
@@ -0,0 +1,74 @@
+package utilities;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class ParserStubServerTest {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private FieldSchema schema;
+    private ParserStubServer stub;
+
+    @BeforeAll
+    void setup() throws IOException {
+        String configJson = Files.readString(Path.of("iso_config_extended_flattened.json"));
+        schema = FieldSchema.compile(objectMapper.readTree(configJson));
+        stub = ParserStubServer.forSchema(schema).start();
+        CreateIsoMessage.setParserUrl(stub.getUrl());
+    }
+
+    @AfterAll
+    void tearDown() {
+        CreateIsoMessage.setParserUrl(null);
+        stub.close();
+    }
+
+    private IsoMessageBuilder validBuilder() {
+        return new IsoMessageBuilder(schema)
+                .setField(schema.byKey("2"), "5314451120000000")
+                .setField(schema.byKey("3"), "000000")
+                .setField(schema.byKey("4"), "000000020000");
+    }
+
+    @Test
+    void testAnswersLikeTheParser() throws IOException {
+        String response = CreateIsoMessage.sendIsoMessageToParser(validBuilder().buildIsoMessage());
+        assert !response.contains("Error") : "Valid message should parse successfully but got " + response;
+
+        JsonNode fields = objectMapper.readTree(response);
+        assert fields.get(0).get("dataElementId").asText().equals("1") : "First element should be the bitmap";
+        assert fields.get(2).get("value").asText().equals("000000") : "Field 3 value should be returned";
+
+        String invalid = validBuilder().setField(schema.byKey("3"), "12A456").buildIsoMessage();
+        String error = CreateIsoMessage.sendIsoMessageToParser(invalid);
+        assert error.startsWith("Error: ") && error.contains("Field 3") : "Invalid field should be reported, got " + error;
+    }
+
+    @Test
+    void testLatencyAndErrorInjection() throws IOException {
+        String isoMessage = validBuilder().buildIsoMessage();
+        try (ParserStubServer failing = ParserStubServer.forSchema(schema)
+                .withLatency(50, 0)
+                .withErrorInjection(1.0, 503)
+                .start()) {
+            HttpClientTransport transport = new HttpClientTransport(failing.getUrl());
+
+            long start = System.nanoTime();
+            ParserResponse response = transport.send(isoMessage);
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            assert response.statusCode == 503 : "Injected errors should use the configured status";
+            assert CreateIsoMessage.toResponseString(response).equals("Error: Injected failure") : "Injected error body should be readable";
+            assert elapsedMillis >= 50 : "Response should be delayed by the configured latency";
+            assert failing.getRequestCount() == 1 && failing.getMessageCount() == 1 : "Stub should count requests and messages";
+        }
+    }
+}
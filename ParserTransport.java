@@ -0,0 +1,54 @@
+package utilities;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends ISO8583 messages to the parser service
+ */
+public interface ParserTransport {
+
+    /**
+     * Sends a message and waits for the response
+     * @param isoMessage the ISO8583 message to send
+     * @return the parser response
+     */
+    ParserResponse send(String isoMessage) throws IOException;
+
+    /**
+     * Sends an already encoded message and waits for the response. The bytes are only read until this
+     * method returns, so the caller may reuse the array afterwards.
+     * @param isoMessage buffer holding the UTF-8 encoded message
+     * @param offset start of the message in the buffer
+     * @param length number of bytes in the message
+     * @return the parser response
+     */
+    default ParserResponse send(byte[] isoMessage, int offset, int length) throws IOException {
+        return send(new String(isoMessage, offset, length, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Sends a message without blocking the calling thread
+     * @param isoMessage the ISO8583 message to send
+     * @return a future completed with the parser response, or exceptionally on transport failure
+     */
+    CompletableFuture<ParserResponse> sendAsync(String isoMessage);
+
+    /**
+     * Sends several messages and returns one response per message in the same order.
+     * Transports without a batch endpoint fall back to sending the messages one at a time.
+     * @param isoMessages the ISO8583 messages to send
+     * @param framing how the messages are framed in the request body
+     * @return the parser responses
+     */
+    default List<ParserResponse> sendBatch(List<String> isoMessages, BatchCodec.Framing framing) throws IOException {
+        List<ParserResponse> responses = new ArrayList<>();
+        for (String isoMessage : isoMessages) {
+            responses.add(send(isoMessage));
+        }
+        return responses;
+    }
+}
@@ -0,0 +1,124 @@
+package utilities;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link ParserTransport} that records parser exchanges to an {@link ExchangeLog} or replays them from one.
+ * In record mode every message goes to the real parser and the exchange is appended to the log.
+ * In replay mode messages are answered from the log only and the network is never touched; a message
+ * that was not recorded fails with an IOException.
+ * <p>
+ * {@link CreateIsoMessage#getTransport()} uses record mode with -Diso.parser.record=&lt;file&gt; and replay
+ * mode with -Diso.parser.replay=&lt;file&gt;.
+ * <p>
+ * Replay matches messages byte for byte, so default field values must be the same in both runs. Both modes
+ * use {@link SeededDefaults}; the recording stores its seed, and replaying with another seed is refused.
+ */
+public class RecordReplayTransport implements ParserTransport {
+    public static final String RECORD_PROPERTY = "iso.parser.record";
+    public static final String REPLAY_PROPERTY = "iso.parser.replay";
+
+    private final ParserTransport delegate;
+    private final ExchangeLog log;
+
+    private RecordReplayTransport(ParserTransport delegate, ExchangeLog log) {
+        this.delegate = delegate;
+        this.log = log;
+    }
+
+    /**
+     * @param delegate the transport that reaches the real parser
+     * @param logFile the log to append to; created if missing
+     * @return a transport that records every exchange
+     */
+    public static RecordReplayTransport record(ParserTransport delegate, Path logFile) throws IOException {
+        ExchangeLog log = new ExchangeLog(logFile);
+        Long seed = SeededDefaults.configuredSeed();
+        if (seed != null) {
+            if (log.getDefaultsSeed() == null) {
+                log.writeDefaultsSeed(seed);
+            } else if (!log.getDefaultsSeed().equals(seed)) {
+                log.close();
+                throw new IOException("Exchange log " + logFile + " was recorded with -D" + SeededDefaults.SEED_PROPERTY
+                        + "=" + log.getDefaultsSeed() + " but this run uses " + seed);
+            }
+        }
+        return new RecordReplayTransport(delegate, log);
+    }
+
+    /**
+     * @param logFile a log written in record mode; it is opened read-only
+     * @return a transport that answers only from the log
+     */
+    public static RecordReplayTransport replay(Path logFile) throws IOException {
+        ExchangeLog log = new ExchangeLog(logFile, true);
+        Long seed = SeededDefaults.configuredSeed();
+        if (log.getDefaultsSeed() != null && !log.getDefaultsSeed().equals(seed)) {
+            log.close();
+            throw new IOException("Exchange log " + logFile + " was recorded with -D" + SeededDefaults.SEED_PROPERTY
+                    + "=" + log.getDefaultsSeed() + "; replay with the same seed, not " + seed);
+        }
+        return new RecordReplayTransport(null, log);
+    }
+
+    public boolean isReplaying() {
+        return delegate == null;
+    }
+
+    public ExchangeLog getLog() {
+        return log;
+    }
+
+    @Override
+    public ParserResponse send(String isoMessage) throws IOException {
+        if (isReplaying()) {
+            return replay(isoMessage);
+        }
+        ParserResponse response = delegate.send(isoMessage);
+        log.append(isoMessage, response);
+        return response;
+    }
+
+    @Override
+    public CompletableFuture<ParserResponse> sendAsync(String isoMessage) {
+        if (isReplaying()) {
+            try {
+                return CompletableFuture.completedFuture(replay(isoMessage));
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return delegate.sendAsync(isoMessage).thenApply(response -> {
+            try {
+                log.append(isoMessage, response);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return response;
+        });
+    }
+
+    @Override
+    public List<ParserResponse> sendBatch(List<String> isoMessages, BatchCodec.Framing framing) throws IOException {
+        if (isReplaying()) {
+            return ParserTransport.super.sendBatch(isoMessages, framing);
+        }
+        List<ParserResponse> responses = delegate.sendBatch(isoMessages, framing);
+        for (int i = 0; i < responses.size(); i++) {
+            log.append(isoMessages.get(i), responses.get(i));
+        }
+        return responses;
+    }
+
+    private ParserResponse replay(String isoMessage) throws IOException {
+        ParserResponse response = log.lookup(isoMessage);
+        if (response == null) {
+            throw new IOException("No recorded response in " + log.getPath() + " for message: " + isoMessage);
+        }
+        return response;
+    }
+}
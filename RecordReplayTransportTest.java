@@ -0,0 +1,133 @@
+package utilities;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class RecordReplayTransportTest {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private FieldSchema schema;
+    private ParserStubServer stub;
+    private Path logFile;
+
+    @BeforeAll
+    void setup() throws IOException {
+        String configJson = Files.readString(Path.of("iso_config_extended_flattened.json"));
+        schema = FieldSchema.compile(objectMapper.readTree(configJson));
+        stub = ParserStubServer.forSchema(schema).start();
+        logFile = Files.createTempFile("parser-exchanges", ".jsonl");
+    }
+
+    @AfterAll
+    void tearDown() throws IOException {
+        stub.close();
+        Files.deleteIfExists(logFile);
+    }
+
+    @Test
+    void testReplayAnswersLikeTheRecording() throws IOException {
+        String valid = new IsoMessageBuilder(schema).setField(schema.byKey("3"), "000000").buildIsoMessage();
+        String invalid = new IsoMessageBuilder(schema).setField(schema.byKey("3"), "12A456").buildIsoMessage();
+        String multiLine = new IsoMessageBuilder(schema).setField(schema.byKey("48"), "line1\nline2").buildIsoMessage();
+        List<String> messages = List.of(valid, invalid, multiLine);
+
+        RecordReplayTransport recorder = RecordReplayTransport.record(new HttpClientTransport(stub.getUrl()), logFile);
+        List<ParserResponse> recorded = recorder.sendBatch(messages, BatchCodec.Framing.JSON_ARRAY);
+        recorder.send(valid);
+        recorder.getLog().close();
+        long requestsAfterRecording = stub.getRequestCount();
+
+        // Simulate a run killed in the middle of an append
+        Files.write(logFile, "{\"hash\":\"12ab\",\"requ".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        RecordReplayTransport replayer = RecordReplayTransport.replay(logFile);
+        assert replayer.getLog().size() == messages.size() : "Each distinct message should be indexed once";
+        for (int i = 0; i < messages.size(); i++) {
+            ParserResponse replayed = replayer.send(messages.get(i));
+            assert replayed.statusCode == recorded.get(i).statusCode : "Status mismatch for message " + i;
+            assert replayed.body.equals(recorded.get(i).body) : "Body mismatch for message " + i;
+        }
+        assert stub.getRequestCount() == requestsAfterRecording : "Replay should never reach the parser";
+
+        try {
+            replayer.send("0100unrecorded");
+            assert false : "Unrecorded messages should fail in replay mode";
+        } catch (IOException expected) {
+            assert expected.getMessage().contains("No recorded response") : "Unexpected error: " + expected.getMessage();
+        }
+        replayer.getLog().close();
+    }
+
+    @Test
+    void testReplayWithActiveFieldsRegeneratesRecordedDefaults() throws IOException {
+        JsonNode config = objectMapper.readTree(Files.readString(Path.of("iso_config_extended_flattened.json")));
+        for (String key : List.of("2", "4", "11", "37")) {
+            ((ObjectNode) config.get(key)).put("active", true);
+        }
+        FieldSchema activeSchema = FieldSchema.compile(config);
+        Path activeLog = Files.createTempFile("parser-exchanges-active", ".jsonl");
+        try {
+            System.setProperty(RecordReplayTransport.RECORD_PROPERTY, activeLog.toString());
+            List<String> recordedMessages = buildWithDefaults(activeSchema);
+            RecordReplayTransport recorder = RecordReplayTransport.record(new HttpClientTransport(stub.getUrl()), activeLog);
+            List<ParserResponse> recorded = recorder.sendBatch(recordedMessages, BatchCodec.Framing.JSON_ARRAY);
+            assert recorder.getLog().getDefaultsSeed() == SeededDefaults.RECORD_REPLAY_SEED : "Recording should store the defaults seed";
+            recorder.getLog().close();
+            System.clearProperty(RecordReplayTransport.RECORD_PROPERTY);
+
+            Files.write(activeLog, "{\"hash\":\"12ab\",\"requ".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+            byte[] before = Files.readAllBytes(activeLog);
+
+            System.setProperty(RecordReplayTransport.REPLAY_PROPERTY, activeLog.toString());
+            List<String> replayedMessages = buildWithDefaults(activeSchema);
+            assert replayedMessages.equals(recordedMessages) : "Replay should regenerate the recorded default field values";
+            RecordReplayTransport replayer = RecordReplayTransport.replay(activeLog);
+            for (int i = 0; i < replayedMessages.size(); i++) {
+                ParserResponse replayed = replayer.send(replayedMessages.get(i));
+                assert replayed.body.equals(recorded.get(i).body) : "Body mismatch for message " + i;
+            }
+            try {
+                replayer.getLog().append(replayedMessages.get(0), recorded.get(0));
+                assert false : "A replayed log should be read-only";
+            } catch (IOException expected) {
+                assert expected.getMessage().contains("read-only") : "Unexpected error: " + expected.getMessage();
+            }
+            replayer.getLog().close();
+            assert Arrays.equals(Files.readAllBytes(activeLog), before) : "Replay should never change the log";
+
+            System.setProperty(SeededDefaults.SEED_PROPERTY, "42");
+            try {
+                RecordReplayTransport.replay(activeLog);
+                assert false : "Replaying with another seed should be refused";
+            } catch (IOException expected) {
+                assert expected.getMessage().contains(SeededDefaults.SEED_PROPERTY) : "Unexpected error: " + expected.getMessage();
+            }
+        } finally {
+            System.clearProperty(RecordReplayTransport.RECORD_PROPERTY);
+            System.clearProperty(RecordReplayTransport.REPLAY_PROPERTY);
+            System.clearProperty(SeededDefaults.SEED_PROPERTY);
+            Files.deleteIfExists(activeLog);
+        }
+    }
+
+    private static List<String> buildWithDefaults(FieldSchema schema) {
+        List<String> messages = new ArrayList<>();
+        messages.add(new IsoMessageBuilder(schema).generateDefaultFields().buildIsoMessage());
+        messages.add(new IsoMessageBuilder(schema).setField(schema.byKey("3"), "000000").generateDefaultFields().buildIsoMessage());
+        return messages;
+    }
+}
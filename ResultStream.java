@@ -0,0 +1,349 @@
+package utilities;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import utilities.CreateIsoMessage.TestResult;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+
+/**
+ * Streams invalid-data case results to machine-readable files as each case completes: a JSON Lines file
+ * with one object per case and a JUnit XML report with one testcase per case. Nothing is kept in memory
+ * but the running totals, so memory use does not depend on the size of the matrix.
+ * <p>
+ * The JUnit testsuite element needs totals that are only known at the end. It is written up front padded
+ * to a fixed width and rewritten in place by {@link #flush()} and {@link #close()}; until then the file is a
+ * valid prefix that ends with the last completed testcase.
+ * <p>
+ * With -Diso.results.jsonl=&lt;file&gt; and/or -Diso.results.junit=&lt;file&gt; every case run through
+ * {@link CreateIsoMessage} is recorded via {@link #record(TestResult)}. The files are opened once per JVM, so
+ * they cover every scenario of a run; steps call {@link #flushConfigured()}, and the files are completed by
+ * {@link #closeConfigured()} at the end of the run or at JVM exit.
+ */
+public final class ResultStream implements Closeable {
+    public static final String JSONL_PROPERTY = "iso.results.jsonl";
+    public static final String JUNIT_PROPERTY = "iso.results.junit";
+    /** Test category of the base message check that precedes a field's invalid cases */
+    public static final String BASE_CATEGORY = "base_message";
+    private static final String SUITE_NAME = "iso8583-invalid-data";
+    private static final int SUITE_HEADER_WIDTH = 200;
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private static ResultStream configured;
+    private static boolean configuredLoaded;
+    private static boolean configuredClosed;
+    private static boolean droppedWarned;
+
+    private final JsonGenerator json;
+    private final FileChannel junitChannel;
+    private final Writer junit;
+    private final long suiteHeaderOffset;
+    private final String timestamp = Instant.now().truncatedTo(ChronoUnit.SECONDS).toString();
+    private long tests;
+    private long failures;
+    private long errors;
+    private long totalNanos;
+    private boolean closed;
+
+    /**
+     * Creates the files, replacing existing ones
+     * @param jsonlPath the JSON Lines file, or null for none
+     * @param junitPath the JUnit XML file, or null for none
+     */
+    public ResultStream(Path jsonlPath, Path junitPath) throws IOException {
+        if (jsonlPath != null) {
+            json = jsonFactory.createGenerator(new BufferedWriter(Channels.newWriter(FileChannel.open(jsonlPath,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING),
+                    StandardCharsets.UTF_8)));
+            json.setRootValueSeparator(null);
+        } else {
+            json = null;
+        }
+        if (junitPath != null) {
+            junitChannel = FileChannel.open(junitPath,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            String prolog = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<testsuites>\n";
+            suiteHeaderOffset = prolog.length();
+            junit = new BufferedWriter(Channels.newWriter(junitChannel, StandardCharsets.UTF_8));
+            junit.write(prolog);
+            junit.write(suiteHeader());
+        } else {
+            junitChannel = null;
+            junit = null;
+            suiteHeaderOffset = 0;
+        }
+    }
+
+    /**
+     * Records a result in the files configured by -Diso.results.jsonl and -Diso.results.junit, if any
+     * @param result the completed case
+     */
+    public static void record(TestResult result) {
+        ResultStream stream = configured();
+        if (stream == null) {
+            return;
+        }
+        try {
+            stream.write(result);
+        } catch (IOException e) {
+            EventLog.console().summary("results.failed", "Warning: Could not write case result: " + e.getMessage());
+        }
+    }
+
+    private static synchronized ResultStream configured() {
+        if (configuredClosed) {
+            // Reopening would replace the completed files, so later cases are dropped
+            if (!droppedWarned) {
+                droppedWarned = true;
+                EventLog.console().summary("results.failed", "Warning: Results files were already completed; later cases are not recorded");
+            }
+            return null;
+        }
+        if (!configuredLoaded) {
+            configuredLoaded = true;
+            String jsonl = System.getProperty(JSONL_PROPERTY);
+            String junit = System.getProperty(JUNIT_PROPERTY);
+            if (jsonl != null || junit != null) {
+                try {
+                    configured = new ResultStream(jsonl != null ? Path.of(jsonl) : null, junit != null ? Path.of(junit) : null);
+                    Runtime.getRuntime().addShutdownHook(new Thread(ResultStream::closeConfigured, "iso-results-close"));
+                } catch (IOException e) {
+                    EventLog.console().summary("results.failed", "Warning: Could not open results files: " + e.getMessage());
+                }
+            }
+        }
+        return configured;
+    }
+
+    /**
+     * Brings the configured files' totals up to date, e.g. at the end of a step. The files stay open for
+     * the cases of later steps.
+     */
+    public static synchronized void flushConfigured() {
+        if (configured != null) {
+            try {
+                configured.flush();
+            } catch (IOException e) {
+                EventLog.console().summary("results.failed", "Warning: Could not flush results files: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Completes and closes the configured files at the end of the run. Cases recorded afterwards are dropped.
+     */
+    public static synchronized void closeConfigured() {
+        if (configured != null) {
+            try {
+                configured.close();
+            } catch (IOException e) {
+                EventLog.console().summary("results.failed", "Warning: Could not complete results files: " + e.getMessage());
+            }
+            configured = null;
+            configuredClosed = true;
+        }
+    }
+
+    /**
+     * Replaces the configured stream, closing the current one; null goes back to the system properties
+     * @param stream the stream every recorded case is written to
+     */
+    static synchronized void setConfigured(ResultStream stream) throws IOException {
+        if (configured != null) {
+            configured.close();
+        }
+        configured = stream;
+        configuredLoaded = stream != null;
+        configuredClosed = false;
+        droppedWarned = false;
+    }
+
+    /**
+     * Appends one case to every file and flushes, so the files are current if the run is killed
+     * @param result the completed case
+     */
+    public synchronized void write(TestResult result) throws IOException {
+        if (closed) {
+            throw new IOException("Result stream is closed");
+        }
+        boolean error = isError(result);
+        tests++;
+        if (error) {
+            errors++;
+        } else if (!result.passed) {
+            failures++;
+        }
+        totalNanos += result.getTotalNanos();
+
+        if (json != null) {
+            writeJson(result);
+        }
+        if (junit != null) {
+            writeTestCase(result, error);
+        }
+    }
+
+    private void writeJson(TestResult result) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("field", result.fieldId);
+        json.writeStringField("category", result.testCategory);
+        json.writeStringField("description", result.description);
+        json.writeBooleanField("passed", result.passed);
+        json.writeStringField("expected", expectedOutcome(result));
+        json.writeStringField("actual", actualOutcome(result));
+        if (!BASE_CATEGORY.equals(result.testCategory)) {
+            json.writeBooleanField("restored", result.restoredSuccessfully);
+        }
+        writeStringOrNull("parserError", result.parserError);
+        writeStringOrNull("error", result.errorMessage == null || result.errorMessage.isEmpty() ? null : result.errorMessage);
+        json.writeNumberField("buildMs", result.buildNanos / 1_000_000.0);
+        json.writeNumberField("sendMs", result.sendNanos / 1_000_000.0);
+        json.writeNumberField("verifyMs", result.verifyNanos / 1_000_000.0);
+        json.writeNumberField("totalMs", result.getTotalNanos() / 1_000_000.0);
+        json.writeEndObject();
+        json.writeRaw('\n');
+        json.flush();
+    }
+
+    private void writeStringOrNull(String name, String value) throws IOException {
+        if (value != null) {
+            json.writeStringField(name, value);
+        } else {
+            json.writeNullField(name);
+        }
+    }
+
+    private void writeTestCase(TestResult result, boolean error) throws IOException {
+        junit.write("    <testcase classname=\"field." + xml(result.fieldId) + "\" name=\"" + xml(result.testCategory)
+                + "\" time=\"" + seconds(result.getTotalNanos()) + "\"");
+        String details = "expected=" + expectedOutcome(result) + " actual=" + actualOutcome(result)
+                + (result.parserError != null ? "\nparserError=" + result.parserError : "");
+        if (result.passed) {
+            junit.write(">\n      <system-out>" + xml(details) + "</system-out>\n    </testcase>\n");
+        } else {
+            String element = error ? "error" : "failure";
+            junit.write(">\n      <" + element + " message=\"" + xml(result.errorMessage) + "\">" + xml(details)
+                    + "</" + element + ">\n    </testcase>\n");
+        }
+        junit.flush();
+    }
+
+    /**
+     * @return true if the case could not be run, as opposed to running and getting the wrong verdict
+     */
+    static boolean isError(TestResult result) {
+        return !result.passed && !result.executed;
+    }
+
+    static String expectedOutcome(TestResult result) {
+        return BASE_CATEGORY.equals(result.testCategory) ? "accepted" : "rejected";
+    }
+
+    static String actualOutcome(TestResult result) {
+        if (!result.executed) {
+            return "not_run";
+        }
+        if (BASE_CATEGORY.equals(result.testCategory)) {
+            return result.passed ? "accepted" : "rejected";
+        }
+        return result.gotExpectedError ? "rejected" : "accepted";
+    }
+
+    private String suiteHeader() {
+        StringBuilder header = new StringBuilder("  <testsuite name=\"" + SUITE_NAME + "\" timestamp=\"" + timestamp
+                + "\" tests=\"" + tests + "\" failures=\"" + failures + "\" errors=\"" + errors
+                + "\" time=\"" + seconds(totalNanos) + "\"");
+        while (header.length() < SUITE_HEADER_WIDTH - 2) {
+            header.append(' ');
+        }
+        return header.append(">\n").toString();
+    }
+
+    private static String seconds(long nanos) {
+        // JUnit consumers only read a decimal point, whatever the default locale
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000_000.0);
+    }
+
+    /**
+     * Escapes text for an XML attribute or element. Characters XML 1.0 cannot carry, which invalid values
+     * often contain, are written as \\uXXXX.
+     */
+    static String xml(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder escaped = new StringBuilder(text.length() + 16);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&': escaped.append("&amp;"); break;
+                case '<': escaped.append("&lt;"); break;
+                case '>': escaped.append("&gt;"); break;
+                case '"': escaped.append("&quot;"); break;
+                default:
+                    if ((c < 0x20 && c != '\t' && c != '\n' && c != '\r') || c == 0xFFFE || c == 0xFFFF) {
+                        escaped.append(String.format("\\u%04X", (int) c));
+                    } else {
+                        escaped.append(c);
+                    }
+            }
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * Flushes every file and rewrites the JUnit header with the totals so far
+     */
+    public synchronized void flush() throws IOException {
+        if (closed) {
+            return;
+        }
+        if (json != null) {
+            json.flush();
+        }
+        if (junit != null) {
+            junit.flush();
+            writeSuiteHeader();
+        }
+    }
+
+    /**
+     * Writes the closing tags and the final totals
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (json != null) {
+            json.close();
+        }
+        if (junit != null) {
+            junit.write("  </testsuite>\n</testsuites>\n");
+            junit.flush();
+            writeSuiteHeader();
+            junit.close();
+        }
+    }
+
+    private void writeSuiteHeader() throws IOException {
+        // The header was written padded, so the current totals fit in the same bytes
+        ByteBuffer header = ByteBuffer.wrap(suiteHeader().getBytes(StandardCharsets.UTF_8));
+        while (header.hasRemaining()) {
+            junitChannel.write(header, suiteHeaderOffset + header.position());
+        }
+    }
+}
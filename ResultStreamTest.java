@@ -0,0 +1,210 @@
+package utilities;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import utilities.CreateIsoMessage.TestResult;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class ResultStreamTest {
+    private Path jsonl;
+    private Path junit;
+
+    @BeforeAll
+    void setUp() throws Exception {
+        jsonl = Files.createTempFile("results", ".jsonl");
+        junit = Files.createTempFile("results", ".xml");
+
+        TestResult base = new TestResult("2", ResultStream.BASE_CATEGORY);
+        base.executed = true;
+        base.passed = true;
+
+        TestResult passed = new TestResult("2", "invalid_type_value");
+        passed.executed = true;
+        passed.gotExpectedError = true;
+        passed.restoredSuccessfully = true;
+        passed.passed = true;
+        passed.parserError = "Field 2 contains non-numeric <data> & more";
+        passed.sendNanos = 2_000_000;
+
+        TestResult accepted = new TestResult("3", "invalid_length_long_value");
+        accepted.executed = true;
+        accepted.restoredSuccessfully = true;
+        accepted.errorMessage = "Expected error response but got success";
+
+        TestResult notRun = new TestResult("4", "invalid_charset_value");
+        notRun.errorMessage = "Test execution error: bad \u0001 value";
+
+        try (ResultStream stream = new ResultStream(jsonl, junit)) {
+            for (TestResult result : List.of(base, passed, accepted, notRun)) {
+                stream.write(result);
+            }
+        }
+    }
+
+    @AfterAll
+    void tearDown() throws Exception {
+        Files.deleteIfExists(jsonl);
+        Files.deleteIfExists(junit);
+    }
+
+    @Test
+    void testJsonLinesHasOneRecordPerCase() throws Exception {
+        List<String> lines = Files.readAllLines(jsonl);
+        assert lines.size() == 4 : "Expected one line per case, got " + lines.size();
+
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode base = mapper.readTree(lines.get(0));
+        assert base.get("expected").asText().equals("accepted") : "Base message should be expected to be accepted";
+        assert !base.has("restored") : "Base message has no restore step";
+
+        JsonNode passed = mapper.readTree(lines.get(1));
+        assert passed.get("field").asText().equals("2") && passed.get("category").asText().equals("invalid_type_value");
+        assert passed.get("actual").asText().equals("rejected") : "Rejected invalid value should be reported";
+        assert passed.get("parserError").asText().contains("non-numeric") : "Parser error text should be kept";
+        assert passed.get("sendMs").asDouble() == 2.0 : "Send time should be in milliseconds";
+
+        JsonNode accepted = mapper.readTree(lines.get(2));
+        assert !accepted.get("passed").asBoolean() && accepted.get("actual").asText().equals("accepted");
+        assert accepted.get("parserError").isNull() : "Accepted message has no parser error";
+
+        assert mapper.readTree(lines.get(3)).get("actual").asText().equals("not_run") : "Unsent case should be not_run";
+    }
+
+    @Test
+    void testJunitReportHasTotalsAndCases() throws Exception {
+        Document report = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(junit.toFile());
+        Element suite = (Element) report.getElementsByTagName("testsuite").item(0);
+        assert suite.getAttribute("tests").equals("4") : "Header should be rewritten with the final count";
+        assert suite.getAttribute("failures").equals("1") : "Accepted invalid value is a failure";
+        assert suite.getAttribute("errors").equals("1") : "Unsent case is an error";
+
+        NodeList cases = report.getElementsByTagName("testcase");
+        assert cases.getLength() == 4 : "Expected one testcase per case";
+        Element passed = (Element) cases.item(1);
+        assert passed.getAttribute("classname").equals("field.2") && passed.getAttribute("name").equals("invalid_type_value");
+        assert passed.getTextContent().contains("<data> & more") : "Parser error should survive escaping";
+        Element notRun = (Element) cases.item(3);
+        assert notRun.getElementsByTagName("error").getLength() == 1 : "Unsent case should carry an error element";
+        assert ((Element) notRun.getElementsByTagName("error").item(0)).getAttribute("message").contains("\\u0001") :
+            "Control characters should be escaped";
+    }
+
+    @Test
+    void testAcceptedInvalidDataIsRecordedAsFailure() throws Exception {
+        Path runJsonl = Files.createTempFile("results-run", ".jsonl");
+        CreateIsoMessage.loadConfig(Path.of("iso_config_extended_flattened.json"));
+        // A parser that accepts everything, invalid data included
+        ParserTransport acceptAll = new ParserTransport() {
+            @Override
+            public ParserResponse send(String isoMessage) {
+                return new ParserResponse(200, "[]");
+            }
+
+            @Override
+            public CompletableFuture<ParserResponse> sendAsync(String isoMessage) {
+                return CompletableFuture.completedFuture(send(isoMessage));
+            }
+        };
+        try {
+            ResultStream.setConfigured(new ResultStream(runJsonl, null));
+            Map<String, List<TestResult>> results = new CreateIsoMessage(acceptAll).validateAllFieldsWithInvalidData();
+            ResultStream.flushConfigured();
+
+            int cases = 0, restored = 0;
+            for (List<TestResult> fieldResults : results.values()) {
+                for (TestResult result : fieldResults) {
+                    cases++;
+                    assert !result.passed : "Accepted invalid value should fail, field " + result.fieldId + " " + result.testCategory;
+                    // Fields without a value in the base message cannot be restored and end in an execution error
+                    if (!result.errorMessage.startsWith("Test execution error")) {
+                        assert result.restoredSuccessfully : "Accepted restore should be reported as restored";
+                        restored++;
+                    }
+                }
+            }
+            assert restored > 0 : "Some cases should restore their field";
+            List<String> lines = Files.readAllLines(runJsonl);
+            assert cases > 0 && lines.size() == cases : "Expected one line per case, got " + lines.size() + " for " + cases;
+            ObjectMapper mapper = new ObjectMapper();
+            for (String line : lines) {
+                JsonNode record = mapper.readTree(line);
+                assert !record.get("passed").asBoolean() && record.get("actual").asText().equals("accepted") :
+                        "Accepted invalid value should be written as a failure: " + line;
+                assert record.get("restored").asBoolean() || record.get("error").asText().startsWith("Test execution error") :
+                        "Restore should be written as successful: " + line;
+            }
+        } finally {
+            ResultStream.setConfigured(null);
+            Files.deleteIfExists(runJsonl);
+        }
+    }
+
+    @Test
+    void testStepsShareTheConfiguredFiles() throws Exception {
+        Path runJsonl = Files.createTempFile("results-steps", ".jsonl");
+        Path runJunit = Files.createTempFile("results-steps", ".xml");
+        try {
+            ResultStream.setConfigured(new ResultStream(runJsonl, runJunit));
+            // Each step records its cases and flushes; the files stay open for the next step
+            for (String field : List.of("2", "3")) {
+                TestResult result = new TestResult(field, "invalid_type_value");
+                result.executed = true;
+                result.gotExpectedError = true;
+                result.restoredSuccessfully = true;
+                result.passed = true;
+                ResultStream.record(result);
+                ResultStream.flushConfigured();
+            }
+            ResultStream.closeConfigured();
+            ResultStream.record(new TestResult("4", "invalid_type_value"));
+
+            List<String> lines = Files.readAllLines(runJsonl);
+            assert lines.size() == 2 : "Both steps' cases should be kept, got " + lines.size();
+            assert lines.get(0).contains("\"field\":\"2\"") && lines.get(1).contains("\"field\":\"3\"") : "Cases out of order";
+            Document report = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(runJunit.toFile());
+            Element suite = (Element) report.getElementsByTagName("testsuite").item(0);
+            assert suite.getAttribute("tests").equals("2") : "Totals should cover both steps";
+            assert report.getElementsByTagName("testcase").getLength() == 2 : "Expected one testcase per case";
+        } finally {
+            ResultStream.setConfigured(null);
+            Files.deleteIfExists(runJsonl);
+            Files.deleteIfExists(runJunit);
+        }
+    }
+
+    @Test
+    void testFlushWritesRunningTotals() throws Exception {
+        Path runJunit = Files.createTempFile("results-flush", ".xml");
+        try (ResultStream stream = new ResultStream(null, runJunit)) {
+            TestResult accepted = new TestResult("3", "invalid_length_long_value");
+            accepted.executed = true;
+            stream.write(accepted);
+            stream.flush();
+            String partial = Files.readString(runJunit);
+            assert partial.contains("tests=\"1\" failures=\"1\"") : "Flushed header should carry the totals so far";
+        } finally {
+            Files.deleteIfExists(runJunit);
+        }
+    }
+
+    @Test
+    void testRecordIsNoOpWithoutConfiguration() throws Exception {
+        ResultStream.setConfigured(null);
+        ResultStream.record(new TestResult("2", "invalid_type_value"));
+        ResultStream.flushConfigured();
+    }
+}
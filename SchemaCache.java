@@ -0,0 +1,142 @@
+package utilities;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide cache of compiled config schemas.
+ * Entries are keyed by the config's absolute path and reused while the file's modification time and size
+ * are unchanged, so repeated scenario steps share one {@link FieldSchema} instead of re-reading the JSON.
+ * <p>
+ * With -Diso.config.snapshot=true the compiled schema is also written next to the JSON as
+ * {@code <config>.schema.bin}. A later JVM loads the snapshot instead of parsing the JSON as long as the
+ * snapshot was written for the same modification time and size; otherwise it is rebuilt.
+ */
+public final class SchemaCache {
+    public static final String SNAPSHOT_PROPERTY = "iso.config.snapshot";
+    public static final String SNAPSHOT_SUFFIX = ".schema.bin";
+    private static final int SNAPSHOT_MAGIC = 0x49534F53; // "ISOS"
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private static final ConcurrentHashMap<Path, Entry> cache = new ConcurrentHashMap<>();
+
+    private SchemaCache() {
+    }
+
+    private static final class Entry {
+        final long lastModified;
+        final long size;
+        final FieldSchema schema;
+
+        Entry(long lastModified, long size, FieldSchema schema) {
+            this.lastModified = lastModified;
+            this.size = size;
+            this.schema = schema;
+        }
+    }
+
+    /**
+     * Gets the compiled schema for a config file, loading it only if it is not cached or has changed
+     * @param configPath the JSON config file
+     * @return the compiled schema
+     */
+    public static FieldSchema load(Path configPath) throws IOException {
+        Path key = configPath.toAbsolutePath().normalize();
+        BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        long size = attributes.size();
+
+        Entry entry = cache.get(key);
+        if (entry != null && entry.lastModified == lastModified && entry.size == size) {
+            return entry.schema;
+        }
+
+        // Concurrent misses for the same file may compile twice; either result is equivalent
+        FieldSchema schema = Boolean.getBoolean(SNAPSHOT_PROPERTY)
+                ? loadWithSnapshot(key, lastModified, size)
+                : FieldSchemaReader.read(key);
+        cache.put(key, new Entry(lastModified, size, schema));
+        return schema;
+    }
+
+    /**
+     * Drops every cached schema so the next load reads the files again
+     */
+    public static void clear() {
+        cache.clear();
+    }
+
+    /**
+     * @param configPath the JSON config file
+     * @return where the binary snapshot for the config is written
+     */
+    public static Path snapshotPath(Path configPath) {
+        return configPath.resolveSibling(configPath.getFileName() + SNAPSHOT_SUFFIX);
+    }
+
+    private static FieldSchema loadWithSnapshot(Path configPath, long lastModified, long size) throws IOException {
+        Path snapshot = snapshotPath(configPath);
+        if (Files.exists(snapshot)) {
+            try {
+                FieldSchema schema = readSnapshot(snapshot, lastModified, size);
+                if (schema != null) {
+                    return schema;
+                }
+            } catch (IOException | RuntimeException e) {
+                EventLog.console().summary("snapshot.unreadable", "Warning: Ignoring unreadable schema snapshot " + snapshot + ": " + e.getMessage());
+            }
+        }
+
+        FieldSchema schema = FieldSchemaReader.read(configPath);
+        try {
+            writeSnapshot(snapshot, schema, lastModified, size);
+        } catch (IOException e) {
+            EventLog.console().summary("snapshot.unwritable", "Warning: Could not write schema snapshot " + snapshot + ": " + e.getMessage());
+        }
+        return schema;
+    }
+
+    /**
+     * @return the schema, or null if the snapshot was written for a different version of the config
+     */
+    static FieldSchema readSnapshot(Path snapshot, long lastModified, long size) throws IOException {
+        try (InputStream file = Files.newInputStream(snapshot);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                return null;
+            }
+            if (in.readLong() != lastModified || in.readLong() != size) {
+                return null;
+            }
+            return FieldSchema.readFrom(in);
+        }
+    }
+
+    static void writeSnapshot(Path snapshot, FieldSchema schema, long lastModified, long size) throws IOException {
+        // Write to a temporary file and move it into place so readers never see a partial snapshot
+        Path temp = Files.createTempFile(snapshot.toAbsolutePath().getParent(), snapshot.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream file = Files.newOutputStream(temp);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeLong(lastModified);
+                out.writeLong(size);
+                schema.writeTo(out);
+            }
+            Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
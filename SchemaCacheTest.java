@@ -0,0 +1,85 @@
+package utilities;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Objects;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class SchemaCacheTest {
+    private Path directory;
+    private Path config;
+
+    @BeforeAll
+    void setup() throws IOException {
+        directory = Files.createTempDirectory("schema-cache");
+        config = directory.resolve("iso_config_extended_flattened.json");
+        Files.copy(Path.of("iso_config_extended_flattened.json"), config);
+    }
+
+    @AfterAll
+    void tearDown() throws IOException {
+        System.clearProperty(SchemaCache.SNAPSHOT_PROPERTY);
+        SchemaCache.clear();
+        Files.deleteIfExists(SchemaCache.snapshotPath(config));
+        Files.deleteIfExists(config);
+        Files.deleteIfExists(directory);
+    }
+
+    @Test
+    void testCachedUntilFileChanges() throws IOException {
+        SchemaCache.clear();
+        FieldSchema first = SchemaCache.load(config);
+        assert SchemaCache.load(config) == first : "Unchanged config should be served from the cache";
+
+        Files.setLastModifiedTime(config, FileTime.fromMillis(Files.getLastModifiedTime(config).toMillis() + 2000));
+        assert SchemaCache.load(config) != first : "A modified config should be reloaded";
+    }
+
+    @Test
+    void testSnapshotMatchesJson() throws IOException {
+        SchemaCache.clear();
+        FieldSchema fromJson = SchemaCache.load(config);
+
+        System.setProperty(SchemaCache.SNAPSHOT_PROPERTY, "true");
+        try {
+            SchemaCache.clear();
+            SchemaCache.load(config);
+            assert Files.exists(SchemaCache.snapshotPath(config)) : "Snapshot should be written next to the config";
+
+            SchemaCache.clear();
+            FieldSchema fromSnapshot = SchemaCache.load(config);
+            assertSameSpecs(fromJson.all(), fromSnapshot.all());
+            assert fromSnapshot.resolve(fromJson.byKey("2").name) == fromSnapshot.field(2) : "Name index should be rebuilt";
+        } finally {
+            System.clearProperty(SchemaCache.SNAPSHOT_PROPERTY);
+        }
+
+        long lastModified = Files.getLastModifiedTime(config).toMillis();
+        assert SchemaCache.readSnapshot(SchemaCache.snapshotPath(config), lastModified + 1, Files.size(config)) == null :
+            "A snapshot for a different config version should be ignored";
+    }
+
+    private static void assertSameSpecs(List<FieldSpec> expected, List<FieldSpec> actual) {
+        assert expected.size() == actual.size() : "Snapshot should hold every config entry";
+        for (int i = 0; i < expected.size(); i++) {
+            FieldSpec e = expected.get(i);
+            FieldSpec a = actual.get(i);
+            String context = "Mismatch for field " + e.key;
+            assert e.key.equals(a.key) && e.number == a.number : context;
+            assert Objects.equals(e.name, a.name) && e.aliases.equals(a.aliases) : context;
+            assert e.format == a.format && e.type == a.type : context;
+            assert e.length == a.length && e.maxLength == a.maxLength : context;
+            assert e.allowedChars.equals(a.allowedChars) && e.active == a.active : context;
+            assert Objects.equals(e.sampleData, a.sampleData) : context;
+            assert e.invalidValues.equals(a.invalidValues) && e.invalidDescriptions.equals(a.invalidDescriptions) : context;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package utilities;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One fixed set of default field values per schema and seed.
+ * With -Diso.defaults.seed=&lt;n&gt; every {@link IsoMessageBuilder#generateDefaultFields()} call fills active
+ * fields from the same set instead of fresh random text, so messages built for the same field under test are
+ * identical and repeated sends can be answered by {@link CachingParserTransport}.
+ * Values are drawn from each field's allowedChars at its maximum length, like the random defaults.
+ * <p>
+ * Recording or replaying parser exchanges (-Diso.parser.record / -Diso.parser.replay) always uses seeded
+ * defaults, {@link #RECORD_REPLAY_SEED} unless a seed is given, since replay matches messages byte for byte.
+ */
+public final class SeededDefaults {
+    public static final String SEED_PROPERTY = "iso.defaults.seed";
+    public static final long RECORD_REPLAY_SEED = 0;
+
+    private static final Map<FieldSchema, Map<Long, Map<String, String>>> sets = new ConcurrentHashMap<>();
+
+    private SeededDefaults() {
+    }
+
+    /**
+     * @return the seed from -Diso.defaults.seed, else {@link #RECORD_REPLAY_SEED} when recording or replaying,
+     * else null if seeded defaults are off
+     */
+    public static Long configuredSeed() {
+        Long seed = Long.getLong(SEED_PROPERTY);
+        if (seed == null && (System.getProperty(RecordReplayTransport.RECORD_PROPERTY) != null
+                || System.getProperty(RecordReplayTransport.REPLAY_PROPERTY) != null)) {
+            return RECORD_REPLAY_SEED;
+        }
+        return seed;
+    }
+
+    /**
+     * Gets the default value for a field, generating the schema's set on first use
+     * @param schema the schema the field belongs to
+     * @param seed the seed the set is generated from
+     * @param spec the field
+     * @return the default value
+     */
+    public static String valueFor(FieldSchema schema, long seed, FieldSpec spec) {
+        return defaults(schema, seed).get(spec.key);
+    }
+
+    /**
+     * @return the default value of every field keyed by config key
+     */
+    public static Map<String, String> defaults(FieldSchema schema, long seed) {
+        return sets.computeIfAbsent(schema, s -> new ConcurrentHashMap<>())
+                .computeIfAbsent(seed, s -> generate(schema, s));
+    }
+
+    private static Map<String, String> generate(FieldSchema schema, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        Map<String, String> values = new LinkedHashMap<>();
+        for (FieldSpec spec : schema.all()) {
+            values.put(spec.key, FieldValueGenerator.generate(spec, random, spec.maxLength));
+        }
+        return Collections.unmodifiableMap(values);
+    }
+}
@@ -1,89 +1,144 @@
 package stepDefinitions;
 import io.cucumber.datatable.DataTable;
+import io.cucumber.java.AfterAll;
 import io.cucumber.java.en.When;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import static utilities.CreateIsoMessage.*;
+import utilities.CombinationExecutor;
 import utilities.CreateIsoMessage.TestSummary;
+import utilities.EventLog;
+import utilities.FieldSpec;
+import utilities.InvalidDataExecutor;
+import utilities.ParserResponse;
+import utilities.ResultStream;
 
 public class ISO8583MessageGenerator {
     private static final ObjectMapper objectMapper = new ObjectMapper();
 
+    /**
+     * Completes the results files once every scenario has run, so they cover the whole matrix
+     */
+    @AfterAll
+    public static void completeResults() {
+        ResultStream.closeConfigured();
+        EventLog.flush();
+    }
+
     @When("^I update iso file \"([^\"]*)\" validate and send the request$")
     public void i_update_iso_file_validate_and_send_the_request(String requestName, DataTable dt) throws IOException {
         loadConfig("iso_config_extended_flattened.json");
 
         List<Map<String, String>> rows = dt.asMaps(String.class, String.class);
         List<TestSummary> allResults = new ArrayList<>();
+        EventLog log = EventLog.console();
 
-        // Apply all field values from the DataTable
-        for (Map<String, String> row : rows) {
-            String jsonPath = row.get("JSONPATH");
-            String value = row.get("Value");
-            String dataType = row.get("DataType");
-            applyBddUpdateExtended(jsonPath, value, dataType);
-        }
+        // Flushed even when the step fails, so its output comes before Cucumber's failure report
+        try {
+            // Apply all field values from the DataTable
+            for (Map<String, String> row : rows) {
+                String jsonPath = row.get("JSONPATH");
+                String value = row.get("Value");
+                String dataType = row.get("DataType");
+                applyBddUpdateExtended(jsonPath, value, dataType);
+            }
 
-        // Generate default fields, ensuring Primary Bitmap is correct
-        generateDefaultFields();
+            // Generate default fields, ensuring Primary Bitmap is correct
+            generateDefaultFields();
 
-        // Build ISO message & JSON output
-        String isoMessage = buildIsoMessage();
-        String jsonOutput = buildJsonMessage();
+            // Build ISO message
+            String isoMessage = buildIsoMessage();
 
-        // Send and validate base message
-        String response = sendIsoMessageToParser(isoMessage);
+            // Send and validate base message
+            ParserResponse response = sendIsoMessage(isoMessage);
         
-        // Print Outputs
-        System.out.println("Generated ISO8583 Message:");
-        System.out.println(isoMessage);
-        System.out.println("\nGenerated JSON Output:");
-        System.out.println(jsonOutput);
-        System.out.println("\nParser Response:");
-        System.out.println(response);
+            // Print Outputs; the full message and its JSON form are only formatted at wire level
+            log.summary("message.generated", "Generated ISO8583 message of " + isoMessage.length() + " characters");
+            log.wire("message.generated", "Generated ISO8583 Message:\n", () -> isoMessage + "\n\nGenerated JSON Output:\n" + jsonOutput());
+            log.wire("message.response", "\nParser Response:\n", () -> toResponseString(response));
         
-        // Validate happy path response
-        if (response.contains("Error") || !response.contains("200")) {
-            throw new AssertionError("Expected 200 success response but got: " + response);
-        }
-        System.out.println("✓ Base message validation successful (200 OK)\n");
+            // Validate happy path response
+            if (response.isError() || response.statusCode != 200) {
+                throw new AssertionError("Expected 200 success response but got: " + response);
+            }
+            log.summary("base.result", "✓ Base message validation successful (200 OK)\n");
         
-        System.out.println("Starting validation tests for each field...\n");
+            log.summary("run.start", "Starting validation tests for each field...\n");
         
-        // Test negative scenarios for each field using the utility in CreateIsoMessage
-        for (Map<String, String> row : rows) {
-            String jsonPath = row.get("JSONPATH");
-            System.out.println("Testing field with JSONPath: " + jsonPath);
-            TestSummary result = validateFieldWithInvalidData(jsonPath);
-            if (result != null) {
-                allResults.add(result);
+            // Test negative scenarios for each field using the utility in CreateIsoMessage
+            if (InvalidDataExecutor.isEnabled()) {
+                List<FieldSpec> specs = new ArrayList<>();
+                for (Map<String, String> row : rows) {
+                    FieldSpec spec = findField(row.get("JSONPATH"));
+                    if (spec == null) {
+                        log.summary("field.unknown", "Warning: No field found for JSONPath " + row.get("JSONPATH"));
+                        continue;
+                    }
+                    specs.add(spec);
+                }
+                allResults.addAll(new InvalidDataExecutor().validateFields(specs));
+            } else {
+                for (Map<String, String> row : rows) {
+                    String jsonPath = row.get("JSONPATH");
+                    log.info("field.jsonPath", "Testing field with JSONPath: " + jsonPath);
+                    TestSummary result = Boolean.getBoolean(BATCH_PROPERTY)
+                            ? validateFieldWithInvalidDataBatched(jsonPath)
+                            : validateFieldWithInvalidData(jsonPath);
+                    if (result != null) {
+                        allResults.add(result);
+                    }
+                }
             }
-        }
 
-        if (allResults.isEmpty()) {
-            System.out.println("\nNo test results collected! Please check if tests are running correctly.");
-            return;
-        }
+            // Then messages that carry several invalid fields at once
+            if (CombinationExecutor.isEnabled()) {
+                List<FieldSpec> specs = new ArrayList<>();
+                for (Map<String, String> row : rows) {
+                    FieldSpec spec = findField(row.get("JSONPATH"));
+                    if (spec != null) {
+                        specs.add(spec);
+                    }
+                }
+                allResults.add(new CombinationExecutor().validateCombinations(specs));
+            }
 
-        // Print overall summary
-        System.out.println("\n\n============================================");
-        System.out.println("           OVERALL TEST SUMMARY              ");
-        System.out.println("============================================");
+            if (allResults.isEmpty()) {
+                log.summary("run.empty", "\nNo test results collected! Please check if tests are running correctly.");
+                return;
+            }
+
+            // Print overall summary
+            log.summary("run.summary", "\n\n============================================"
+                    + "\n           OVERALL TEST SUMMARY              "
+                    + "\n============================================");
         
-        // Print individual field summaries
-        System.out.println("\nResults by Field:");
-        for (TestSummary summary : allResults) {
-            System.out.println("\n-----------------------------------------");
-            summary.printSummary("  ");
-        }
+            // Print individual field summaries
+            log.summary("run.summary", "\nResults by Field:");
+            for (TestSummary summary : allResults) {
+                log.summary("run.summary", "\n-----------------------------------------");
+                summary.printSummary("  ");
+            }
         
-        // Print combined summary
-        System.out.println("\n============================================");
-        System.out.println("           FINAL TOTALS                     ");
-        System.out.println("============================================");
-        TestSummary combined = TestSummary.combine(allResults);
-        combined.printSummary("  ");
-        System.out.println("\nTest execution completed.");
+            // Print combined summary
+            log.summary("run.summary", "\n============================================"
+                    + "\n           FINAL TOTALS                     "
+                    + "\n============================================");
+            TestSummary combined = TestSummary.combine(allResults);
+            combined.printSummary("  ");
+            log.summary("run.end", "\nTest execution completed.");
+        } finally {
+            ResultStream.flushConfigured();
+            EventLog.flush();
+        }
+    }
+
+    private static String jsonOutput() {
+        try {
+            return buildJsonMessage();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
-}
\ No newline at end of file
+}
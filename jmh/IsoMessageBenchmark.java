@@ -0,0 +1,153 @@
+package utilities;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks for the message engine hot paths, run against the real iso_config_extended_flattened.json
+ * and messageResponse.json. Message benchmarks use a fully populated message: every configured data element
+ * is marked active and filled with generated values, which sets bits in both bitmaps.
+ * <p>
+ * Kept in jmh/, apart from the sources, so compiling the package never needs JMH. {@code gradle jmh} builds it
+ * with the sources and runs every benchmark from the project root with the GC profiler, as does
+ * {@link #main(String[])}, so throughput is reported together with the allocation rate per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IsoMessageBenchmark {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final String CONFIG = "iso_config_extended_flattened.json";
+
+    private Path configPath;
+    private String configJson;
+    private List<String> fieldNames;
+    private int nextName;
+    private FieldSchema populatedSchema;
+    private IsoMessageBuilder populated;
+    private IsoMessageBuilder scratch;
+    private IsoMessageDecoder decoder;
+    private String isoMessage;
+    private String responseBody;
+    private long seed;
+
+    @Setup
+    public void setup() throws IOException {
+        configPath = Path.of(CONFIG);
+        CreateIsoMessage.loadConfig(configPath);
+        configJson = Files.readString(configPath);
+
+        fieldNames = new ArrayList<>();
+        for (FieldSpec spec : CreateIsoMessage.getSchema().all()) {
+            if (spec.name != null) {
+                fieldNames.add(spec.name);
+            }
+        }
+
+        // Same config with every entry active, so generateDefaultFields fills the whole message
+        JsonNode root = objectMapper.readTree(configJson);
+        for (Iterator<JsonNode> it = root.elements(); it.hasNext(); ) {
+            ((ObjectNode) it.next()).put("active", true);
+        }
+        populatedSchema = FieldSchema.compile(root);
+        populated = new IsoMessageBuilder(populatedSchema).generateDefaultFields(42);
+        scratch = new IsoMessageBuilder(populatedSchema);
+        decoder = new IsoMessageDecoder(populatedSchema);
+        isoMessage = populated.buildIsoMessage();
+        responseBody = Files.readString(Path.of("messageResponse.json"));
+    }
+
+    @Benchmark
+    public void loadConfigCached() throws IOException {
+        CreateIsoMessage.loadConfig(configPath);
+    }
+
+    @Benchmark
+    public FieldSchema readConfigStreaming() throws IOException {
+        return FieldSchemaReader.read(configPath);
+    }
+
+    @Benchmark
+    public FieldSchema compileConfigTree() throws IOException {
+        return FieldSchema.compile(objectMapper.readTree(configJson));
+    }
+
+    @Benchmark
+    public String getFieldNumberFromJsonPath() {
+        String name = fieldNames.get(nextName);
+        nextName = (nextName + 1) % fieldNames.size();
+        return CreateIsoMessage.getFieldNumberFromJsonPath(name);
+    }
+
+    @Benchmark
+    public IsoMessageBuilder generateDefaultFields() {
+        return scratch.reset().generateDefaultFields(seed++);
+    }
+
+    @Benchmark
+    public String buildIsoMessage() {
+        return populated.buildIsoMessage();
+    }
+
+    @Benchmark
+    public int encodeIsoMessage() {
+        return populated.encode().length();
+    }
+
+    @Benchmark
+    public String buildJsonMessage() throws IOException {
+        return populated.buildJsonMessage();
+    }
+
+    @Benchmark
+    public void bitmapToHex(Blackhole blackhole) {
+        blackhole.consume(IsoBitmap.toHex(populated.getPrimaryBitmap()));
+        blackhole.consume(IsoBitmap.toHex(populated.getSecondaryBitmap()));
+    }
+
+    @Benchmark
+    public int parseResponse() {
+        return new ParserResponse(200, responseBody).getFields().size();
+    }
+
+    @Benchmark
+    public IsoMessageDecoder.DecodeResult decodeMessage() {
+        return decoder.decode(isoMessage);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(IsoMessageBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}